@@ -1,19 +1,34 @@
-import java.util.Comparator;
-import java.util.PriorityQueue;
-
 /**
  * AStar Algorithm uses priority queue, and compares the nodes by the sum of their cost and their approximated
- * distance from the goal.
+ * distance from the goal, f(n) = g(n) + h(n), such that g(n) is the node's depth and h(n) is the heuristic function
+ * of the moves logic (Manhattan's distance by default). Nodes with the same f(n) are developed by their creation
+ * order (their sequence numbers, not the clock), and then by their direction - R, L, D and then U. Other tie breaking
+ * policies can be chosen instead.
+ * A closed list of the developed states makes sure that no state is developed twice.
+ * Boards of up to 16 cells keep their search tree in a NodeArena, in the same order, instead of Node objects.
  */
 public class AStar extends Algorithm {
+
+    private final TieBreaking policy;
     
     /**
-     * Constructor.
+     * Constructor, of a square board with the standard goal and the exercise's tie breaking.
      * @param size - board size
      * @param initState - the matrix as a string
      */
     public AStar(int size, String initState) {
-        super(size, initState);
+        this(Shape.Square(size), PuzzleValidator.Parse(Shape.Square(size), initState), TieBreaking.FIFO);
+    }
+
+    /**
+     * Constructor.
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     * @param policy - the order of the nodes of the same estimate
+     */
+    public AStar(Shape shape, int[] tiles, TieBreaking policy) {
+        super(shape, tiles);
+        this.policy = policy;
     }
 
     @Override
@@ -24,84 +39,124 @@ public class AStar extends Algorithm {
     
     @Override
     public Node Search(MovesLogic logic) {
-        // the priority of the queue is set by the Distane comperator
-        PriorityQueue<Node> openList = new PriorityQueue<Node>(new Distance());
-        openList.add(this.initialState);
-        while (!openList.isEmpty()) {
-            Node current = openList.remove();
+        // the successors' heuristic values are updated from their parents', starting from the initial state
+        this.metrics.Start();
+        this.initialState.setHeuristic(logic.getHeuristic().Evaluate(this.initialState.getState()));
+        this.metrics.Evaluated(1);
+        if (this.initialState.getState() instanceof PackedState)
+            return SearchArena(logic);
+        // the priority of the queue is set by the nodes' estimates
+        Frontier openList = new BucketQueue(this.policy);
+        LongHashSet closedList = new LongHashSet();
+        // the bigger boards' hashes may collide, so the closed list keeps exact keys
+        StateKeys keys = new StateKeys();
+        Node[] moves = new Node[MovesLogic.MAX_MOVES];
+        openList.Add(this.initialState);
+        while (!openList.IsEmpty()) {
+            Node current = openList.Remove();
+            // the heuristics are consistent, so the first time a state is developed it is the cheapest
+            if (!closedList.Add(keys.Key(current.getState()))) {
+                this.metrics.Duplicate();
+                continue;
+            }
             this.developedNodes++;
+            this.metrics.Expanded();
+            this.metrics.Closed(closedList.Size());
             if (current.equals(this.goalState)) {
                 this.goalState = current;
+                this.metrics.Finish();
                 return current;
             }
-            // add the successors of the developed node to the open list
-            openList.addAll(logic.GetPossibleMoves(current));
+            // add the successors of the developed node that weren't developed yet to the open list.
+            // each bucket is developed in the order it was filled, and the successors were created together,
+            // so adding them from R back to U develops them by their creation time and then by their direction.
+            int count = logic.GenerateMoves(current, moves);
+            this.metrics.Generated(count);
+            this.metrics.Evaluated(count);
+            for (int i = count - 1; i >= 0; i--) {
+                if (!closedList.Contains(keys.Find(moves[i].getState())))
+                    openList.Add(moves[i]);
+                else
+                    this.metrics.Duplicate();
+            }
+            this.metrics.Frontier(openList.Size());
         }
+        this.metrics.Finish();
         return null;
     }
 
     /**
-     * This Comperator implements f(n) = g(n) + h(n), such that g(n) is the node's depth,
-     * and h(n) is the heuristic function is Manhattan's distance. It is an inner class beacause
-     * it has no use outside of the AStar class.
+     * SearchArena is the search of the packed states, with the nodes in a NodeArena. A node's heuristic value is
+     * it's bucket's estimate minus it's depth, so the arena doesn't keep it.
+     * @param logic - the tiles game moving logic, for it's heuristic and to rebuild the track with
+     * @return the goal state
      */
-    private class Distance implements Comparator<Node> {
-
-        @Override
-        public int compare(Node o1, Node o2) {
-            // first, compare by the heuristic function
-            int estimatedDistance1 = o1.getDepth() + Manhattan(o1);
-            int estimatesDistance2 = o2.getDepth() + Manhattan(o2);
-            if (estimatesDistance2 < estimatedDistance1) return 1;
-            if (estimatesDistance2 > estimatedDistance1) return -1;
-            // then, compare by the nodes creation time
-            if (o2.getTime() < o1.getTime()) return 1;
-            if (o2.getTime() > o1.getTime()) return -1;
-            // then comare by the direction
-            int rank1 = GetRank(o1);
-            int rank2 = GetRank(o2);
-            if (rank2 < rank1) return 1;
-            if (rank2 > rank1) return -1;
-            
-            return 0;
-        }
-
-        /**
-         * GetRank ranks the node by it's operator
-         * @param node the node
-         * @return the rank, highest for U and lowest for R, -1 if there was a mistake
-         */
-        private int GetRank(Node node) {
-            Character operator = node.getOperator();
-            if (operator.equals('U')) return 4;
-            if (operator.equals('D')) return 3;
-            if (operator.equals('L')) return 2;
-            if (operator.equals('R')) return 1;
-            return -1;
+    private Node SearchArena(MovesLogic logic) {
+        // the thread's buffers are reused from search to search
+        SearchBuffers buffers = SearchBuffers.Acquire();
+        try {
+            return SearchArena(logic, buffers.getArena(), buffers.getBuckets(this.policy), buffers.getClosedList());
+        } finally {
+            buffers.Release();
         }
+    }
 
-        /**
-         * Manhattan calculates the distance between a node's state and the goal state.
-         * @param current node
-         * @return numeric value of distance from goal state
-         */
-        private int Manhattan(Node current) {
-            int distanceFromGoal = 0;
-            int size = current.GetSize();
-            // go over the matrix
-            for (int i = 0; i < size; i++) {
-                for (int j = 0; j < size; j++) {
-                    // for each value in the matrix that's not 0
-                    int val = current.getStateMatrix()[i][j];
-                    if (val == 0)
-                        continue;
-                    // calculate it's distance from it's place in the goal state and add it to the sum
-                    int rowGoal = Math.floorDiv((val - 1), size);
-                    int columnGoal = (val - 1) % size;
-                    distanceFromGoal += Math.abs(i - rowGoal) + Math.abs(j - columnGoal);
-                }
+    /**
+     * SearchArena searches with the given buffers, empty.
+     * @param logic - the tiles game moving logic, for it's heuristic and to rebuild the track with
+     * @param arena - the search tree
+     * @param openList - the open list
+     * @param closedList - the closed list
+     * @return the goal state
+     */
+    private Node SearchArena(MovesLogic logic, NodeArena arena, IntBucketQueue openList, LongHashSet closedList) {
+        Heuristic heuristic = logic.getHeuristic();
+        MoveTable table = this.shape.getMoves();
+        // the heuristics get the successors as a state, so the moves are made on a single board
+        PackedState board = (PackedState) this.initialState.getState().Copy();
+        long goal = this.goalState.getState().Key();
+        openList.Add(arena.Add(board.getTiles(), NodeArena.NO_PARENT, Node.NO_OPERATOR, 0),
+                this.initialState.getEstimate(), this.initialState.getHeuristic());
+        while (!openList.IsEmpty()) {
+            int estimate = openList.MinimumEstimate();
+            int current = openList.Remove();
+            long tiles = arena.Tiles(current);
+            if (!closedList.Add(tiles)) {
+                this.metrics.Duplicate();
+                continue;
+            }
+            this.developedNodes++;
+            this.metrics.Expanded();
+            this.metrics.Closed(closedList.Size());
+            if (tiles == goal) {
+                this.metrics.Finish();
+                char[] track = arena.Track(current);
+                return BuildTrack(logic, track, track.length);
             }
-            return distanceFromGoal;
+            int depth = arena.Depth(current);
+            int distance = estimate - depth;
+            board.Load(tiles);
+            int blank = board.getBlank();
+            int[] targets = table.Targets(blank);
+            char[] directions = table.Directions(blank);
+            // added from R back to U, like the nodes of the other search
+            for (int i = targets.length - 1; i >= 0; i--) {
+                int tile = board.Get(targets[i]);
+                board.MoveBlank(targets[i]);
+                int childDistance = heuristic.Update(board, distance, tile, targets[i], blank);
+                long child = board.getTiles();
+                board.MoveBlank(blank);
+                if (!closedList.Contains(child))
+                    openList.Add(arena.Add(child, current, directions[i], depth + 1), depth + 1 + childDistance,
+                            childDistance);
+                else
+                    this.metrics.Duplicate();
+            }
+            this.metrics.Generated(targets.length);
+            this.metrics.Evaluated(targets.length);
+            this.metrics.Frontier(openList.Size());
         }
+        this.metrics.Finish();
+        return null;
     }
 }
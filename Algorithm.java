@@ -1,23 +1,27 @@
 /**
- * The super class of all search algorithms. It holds the initial and goal states, the board size
- * and a counter of the developed nodes. it is also responsible to return the final course to the goal and it's cost.
+ * The super class of all search algorithms. It holds the initial and goal states, the board's shape,
+ * a counter of the developed nodes and the metrics of the search.
+ * it is also responsible to return the final course to the goal and it's cost.
  */
 public abstract class Algorithm {
     
-    protected int boardSize;
+    protected final Shape shape;
     protected Node initialState;
     protected Node goalState;
-    protected int developedNodes;
+    protected long developedNodes;
+    protected final SearchMetrics metrics;
     
     /**
      * Constructor.
-     * @param boardSize - the size of the state matrix for each node
-     * @param initState - the initial state matrix, in string form
+     * @param shape - the board of the state matrix for each node, with it's goal
+     * @param tiles - the initial state's tiles row by row, as PuzzleValidator parses them
+     * @throws InvalidPuzzleException if the puzzle is malformed or unsolvable, so no search starts
      */
-    protected Algorithm(int boardSize, String initState) {
+    protected Algorithm(Shape shape, int[] tiles) {
         this.developedNodes = 0;
-        this.boardSize = boardSize;
-        GenerateFirstNode(initState);
+        this.metrics = new SearchMetrics();
+        this.shape = shape;
+        GenerateFirstNode(tiles);
         GenerateGoalState();
     }
     
@@ -30,12 +34,13 @@ public abstract class Algorithm {
     
     /**
      * SolutionTrack starts with the goal Node and track down the course led to it, going from child to parent.
+     * The track ends at the initial state, the only node without a parent, so no states are compared on the way.
      * @return the solution string, composed of U, D, R and L.
      */
     public String SolutionTrack() {
         StringBuilder builder = new StringBuilder();
         Node current = this.goalState;
-        while (!current.equals(this.initialState)) {
+        while (current.getParent() != null) {
             // add the current's operator that led to it
             builder.append(current.getOperator());
             current = current.getParent();
@@ -44,14 +49,46 @@ public abstract class Algorithm {
         return builder.reverse().toString(); 
     }
     
+    /**
+     * BuildTrack replays a list of moves from the initial state and sets the goal state to the node it ends in,
+     * for the searches that don't keep a node for every state.
+     * @param logic - the tiles game moving logic
+     * @param moves - the moves, U, D, L or R
+     * @param length - the number of moves
+     * @return the goal state
+     */
+    protected Node BuildTrack(MovesLogic logic, char[] moves, int length) {
+        Node current = this.initialState;
+        for (int i = 0; i < length; i++)
+            current = logic.Move(current, moves[i]);
+        this.goalState = current;
+        return current;
+    }
+
     /**
      * the number of nodes that were developed during the running operation
      * @return that number
      */
-    public int DevelopedNodesCount() {
+    public long DevelopedNodesCount() {
         return this.developedNodes;
     }
+
+    /**
+     * getMetrics
+     * @return the metrics of the last search, which are updated while it runs
+     */
+    public SearchMetrics getMetrics() {
+        return this.metrics;
+    }
     
+    /**
+     * NoSolution says why the last search ended without a solution, which only the bounded searches do.
+     * @return the reason, for the error line
+     */
+    public String NoSolution() {
+        return "the search ended without a solution";
+    }
+
     /**
      * abstract method, implemented differently between the algorithms
      * @return the cost or the depth of the final solution
@@ -59,39 +96,27 @@ public abstract class Algorithm {
     public abstract int Cost();
     
     /**
-     * Generates the first node from the string of the first state.
-     * @param s - that string
+     * Generates the first node from the tiles of the first state, after they are checked.
+     * @param values - the tiles
      */
-    private void GenerateFirstNode(String s) {
-        int[][] matrix = new int[this.boardSize][this.boardSize];
-        String[] values = s.split("-");
-        int k = 0; // the values index
-        for (int i = 0; i < this.boardSize; i++) {
-            for (int j = 0; j < this.boardSize; j++) {
-                matrix[i][j] = Integer.parseInt(values[k]);
-                k++;
-            }
-        }
-        // ganerate the initial state with this matrix, set the parent node and the operator led to it to be 'null'.
-        this.initialState = new Node(matrix, this.boardSize, null, null, 0);
+    private void GenerateFirstNode(int[] values) {
+        PuzzleValidator.Check(this.shape, values);
+        State state = State.Create(this.shape);
+        // the values are given row by row, which is exactly the order of the state's cells
+        for (int k = 0; k < values.length; k++)
+            state.Set(k, values[k]);
+        // ganerate the initial state with these tiles, set the parent node and the operator led to it to be 'null'.
+        this.initialState = new Node(state, null, Node.NO_OPERATOR, 0);
     }
 
     /**
-     * Generate the goal state of the board.
+     * Generate the goal state of the board, as it's shape defines it.
      */
     private void GenerateGoalState() {
-        int[][] matrix = new int[this.boardSize][this.boardSize];
-        int counter = 1;
-        int i,j = 0;
-        // fill the matrix with the right values
-        for (i = 0; i < this.boardSize; i++) {
-            for (j = 0; j < this.boardSize; j++) {
-                matrix[i][j] = counter;
-                counter++;
-            }
-        }
-        // set the last cell to 0.
-        matrix[this.boardSize - 1][this.boardSize - 1] = 0;
-        this.goalState = new Node(matrix, this.boardSize, null, null, -1);
+        State state = State.Create(this.shape);
+        // fill the board with the right values
+        for (int k = 0; k < this.shape.getCells(); k++)
+            state.Set(k, this.shape.Goal(k));
+        this.goalState = new Node(state, null, Node.NO_OPERATOR, -1);
     }
 }
@@ -0,0 +1,216 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AnytimeAStar is a weighted A* that keeps improving it's solution, like ARA*. It orders the nodes by
+ * g(n) + w * h(n), which finds a solution that costs at most w times the optimal far sooner than A* finds the
+ * optimal one. After each solution it lowers the weight and goes on from the nodes it already has, developing a
+ * state again only if it was reached cheaper, until the weight is 1 and the solution is optimal.
+ * Every better solution is published to a listener, and the search stops early at a deadline or a node budget
+ * with the best solution it has found. It also stops when the heap is almost full, instead of losing the solution
+ * to an OutOfMemoryError. With no weight step it is a plain weighted A*, that stops at it's first
+ * solution.
+ */
+public class AnytimeAStar extends AStar {
+
+    // the weights are kept as tenths, so the weighted estimates stay integers for the bucket queue
+    private static final int SCALE = 10;
+    // the clock and the heap are checked once every that many developed nodes
+    private static final int CLOCK_PERIOD = 1024;
+    private static final double MAX_HEAP_USE = 0.9;
+
+    private final int weight;
+    private final int step;
+    private final long deadlineNanos;
+    private final long budget;
+    private SolutionListener listener;
+    private Node bestGoal;
+    private int currentWeight;
+    private long start;
+    private boolean stopped;
+    // the limit that stopped the search, if one did
+    private String limit;
+
+    /**
+     * Constructor.
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     * @param weight - the first weight of the heuristic, at least 1
+     * @param step - the weight that is taken off after every solution, 0 for a single weighted search
+     * @param deadlineMillis - the time the search may take, 0 for no limit
+     * @param budget - the most nodes the search may develop, 0 for no limit
+     */
+    public AnytimeAStar(Shape shape, int[] tiles, double weight, double step, long deadlineMillis,
+            long budget) {
+        super(shape, tiles, TieBreaking.FIFO);
+        if (weight < 1)
+            throw new IllegalArgumentException("the weight must be at least 1, it is " + weight);
+        this.weight = (int) Math.round(weight * SCALE);
+        this.step = (int) Math.round(step * SCALE);
+        this.deadlineNanos = deadlineMillis * 1000000L;
+        this.budget = budget;
+    }
+
+    /**
+     * setListener
+     * @param listener - the listener that gets every better solution, or null
+     */
+    public void setListener(SolutionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * getWeight
+     * @return the weight of the last finished search, the best solution costs at most that times the optimal
+     */
+    public double getWeight() {
+        return (double) this.currentWeight / SCALE;
+    }
+
+    @Override
+    public Node Search(MovesLogic logic) {
+        this.metrics.Start();
+        this.start = System.nanoTime();
+        this.stopped = false;
+        this.limit = null;
+        this.bestGoal = null;
+        this.initialState.setHeuristic(logic.getHeuristic().Evaluate(this.initialState.getState()));
+        this.metrics.Evaluated(1);
+        // the cheapest depth every state was reached at, over all the weights
+        LongIntHashMap reached = new LongIntHashMap();
+        // the bigger boards' hashes may collide, so the lists keep exact keys
+        StateKeys keys = new StateKeys();
+        reached.Put(keys.Key(this.initialState.getState()), 0);
+        List<Node> open = new ArrayList<Node>();
+        open.add(this.initialState);
+        Node[] moves = new Node[MovesLogic.MAX_MOVES];
+        for (this.currentWeight = this.weight; ; this.currentWeight = Math.max(SCALE, this.currentWeight - this.step)) {
+            this.metrics.StartIteration(this.currentWeight);
+            // the states that got cheaper after they were developed wait for the next weight
+            List<Node> inconsistent = new ArrayList<Node>();
+            BucketQueue openList = new BucketQueue();
+            for (Node node : open)
+                openList.Add(node, Key(node));
+            ImprovePath(logic, openList, reached, keys, inconsistent, moves);
+            this.metrics.EndIteration();
+            if (this.stopped || this.currentWeight == SCALE || this.step <= 0
+                    || (openList.IsEmpty() && inconsistent.isEmpty()))
+                break;
+            open = inconsistent;
+            while (!openList.IsEmpty())
+                open.add(openList.Remove());
+        }
+        this.metrics.Finish();
+        if (this.bestGoal == null)
+            return null;
+        this.goalState = this.bestGoal;
+        return this.bestGoal;
+    }
+
+    /**
+     * ImprovePath develops the nodes by their weighted estimates, until none of them can lead to a cheaper goal.
+     * @param logic - the tiles game moving logic
+     * @param openList - the open list, by the current weight
+     * @param reached - the cheapest depth of every state
+     * @param keys - the exact keys of the states
+     * @param inconsistent - the list of developed states that were reached cheaper
+     * @param moves - the buffer for the successors
+     */
+    private void ImprovePath(MovesLogic logic, BucketQueue openList, LongIntHashMap reached, StateKeys keys,
+            List<Node> inconsistent, Node[] moves) {
+        // a state is developed once for every weight
+        LongHashSet closedList = new LongHashSet();
+        while (!openList.IsEmpty() && (this.bestGoal == null
+                || openList.MinimumEstimate() < this.bestGoal.getDepth() * SCALE)) {
+            Node current = openList.Remove();
+            long key = keys.Key(current.getState());
+            // a cheaper way to this state was found after this node was added
+            if (current.getDepth() > reached.Get(key, Integer.MAX_VALUE) || !closedList.Add(key)) {
+                this.metrics.Duplicate();
+                continue;
+            }
+            this.developedNodes++;
+            this.metrics.Expanded();
+            this.metrics.Closed(closedList.Size());
+            if (current.equals(this.goalState)) {
+                // the goals are only developed while they are cheaper than the best one
+                this.bestGoal = current;
+                if (this.listener != null)
+                    this.listener.Found(Track(current), current.getDepth(), getWeight(),
+                            System.nanoTime() - this.start);
+                continue;
+            }
+            int count = logic.GenerateMoves(current, moves);
+            this.metrics.Generated(count);
+            this.metrics.Evaluated(count);
+            // added from R back to U, like A*
+            for (int i = count - 1; i >= 0; i--) {
+                long childKey = keys.Key(moves[i].getState());
+                if (moves[i].getDepth() >= reached.Get(childKey, Integer.MAX_VALUE)) {
+                    this.metrics.Duplicate();
+                    continue;
+                }
+                reached.Put(childKey, moves[i].getDepth());
+                if (closedList.Contains(childKey))
+                    inconsistent.add(moves[i]);
+                else
+                    openList.Add(moves[i], Key(moves[i]));
+            }
+            this.metrics.Frontier(openList.Size() + inconsistent.size());
+            if (OutOfTime()) {
+                this.stopped = true;
+                break;
+            }
+        }
+    }
+
+    @Override
+    public String NoSolution() {
+        if (this.limit == null)
+            return super.NoSolution();
+        return "no solution within " + this.limit;
+    }
+
+    /**
+     * Key is the weighted estimate of a node, in tenths.
+     * @param node - the node
+     * @return g(n) + w * h(n), times 10
+     */
+    private int Key(Node node) {
+        return node.getDepth() * SCALE + node.getHeuristic() * this.currentWeight;
+    }
+
+    /**
+     * OutOfTime
+     * @return true if the search went over it's node budget, it's deadline or the heap, which is kept as the limit
+     */
+    private boolean OutOfTime() {
+        if (this.budget > 0 && this.developedNodes >= this.budget) {
+            this.limit = "the budget of " + this.budget + " developed nodes";
+            return true;
+        }
+        if (this.developedNodes % CLOCK_PERIOD != 0)
+            return false;
+        if (this.deadlineNanos > 0 && System.nanoTime() - this.start >= this.deadlineNanos) {
+            this.limit = "the deadline of " + this.deadlineNanos / 1000000L + " ms";
+            return true;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        if (runtime.totalMemory() - runtime.freeMemory() <= runtime.maxMemory() * MAX_HEAP_USE)
+            return false;
+        this.limit = "the heap";
+        return true;
+    }
+
+    /**
+     * Track
+     * @param goal - a goal node
+     * @return the moves from the initial state to it
+     */
+    private static String Track(Node goal) {
+        StringBuilder builder = new StringBuilder();
+        for (Node current = goal; current.getParent() != null; current = current.getParent())
+            builder.append(current.getOperator());
+        return builder.reverse().toString();
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.Arrays;
+
+/**
+ * ArrayStack is a last in, first out open list over a plain array. Unlike java.util.Stack it is not synchronized,
+ * and it can push a group of successors in reverse order directly, so the first of them is developed first.
+ */
+public class ArrayStack implements Frontier {
+
+    private Node[] nodes;
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    public ArrayStack() {
+        this.nodes = new Node[16];
+        this.size = 0;
+    }
+
+    @Override
+    public void Add(Node node) {
+        if (this.size == this.nodes.length)
+            this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+        this.nodes[this.size++] = node;
+    }
+
+    /**
+     * AddReversed pushes the given nodes from the last to the first.
+     * @param moves - the nodes
+     * @param count - the number of nodes
+     */
+    public void AddReversed(Node[] moves, int count) {
+        if (this.size + count > this.nodes.length)
+            this.nodes = Arrays.copyOf(this.nodes, Math.max(this.nodes.length * 2, this.size + count));
+        for (int i = count - 1; i >= 0; i--)
+            this.nodes[this.size++] = moves[i];
+    }
+
+    @Override
+    public Node Remove() {
+        Node node = this.nodes[--this.size];
+        this.nodes[this.size] = null;
+        return node;
+    }
+
+    @Override
+    public boolean IsEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int Size() {
+        return this.size;
+    }
+}
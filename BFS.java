@@ -1,37 +1,132 @@
-import java.util.LinkedList;
-import java.util.Queue;
-
 /**
- * BFS algorithm uses a Queue as it's open list.
+ * BFS algorithm uses a Queue (a RingDeque) as it's open list.
  * The queue allows it to develop each node's neiboghrs before their successors.
+ * A closed list of the developed states makes sure that no state is developed twice.
+ * Boards of up to 16 cells keep their search tree in a NodeArena, in the same order, instead of Node objects.
  */
 public class BFS extends Algorithm {
     
     /**
-     * Constructor.
+     * Constructor, of a square board with the standard goal.
      * @param size - the board size
      * @param initState - the matrix in a string form
      */
     public BFS(int size, String initState) {
-        super(size, initState);
+        this(Shape.Square(size), PuzzleValidator.Parse(Shape.Square(size), initState));
+    }
+
+    /**
+     * Constructor.
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     */
+    public BFS(Shape shape, int[] tiles) {
+        super(shape, tiles);
     }
     
     @Override
     public Node Search(MovesLogic logic) {
+        this.metrics.Start();
+        if (this.initialState.getState() instanceof PackedState)
+            return SearchArena(logic);
         // we use a queue as our data structure for open list
-        Queue<Node> openList = new LinkedList<>();
-        openList.add(this.initialState);
-        while (!openList.isEmpty()) {
-            Node current = openList.remove();
+        Frontier openList = new RingDeque();
+        LongHashSet closedList = new LongHashSet();
+        // the bigger boards' hashes may collide, so the closed list keeps exact keys
+        StateKeys keys = new StateKeys();
+        Node[] moves = new Node[MovesLogic.MAX_MOVES];
+        openList.Add(this.initialState);
+        while (!openList.IsEmpty()) {
+            Node current = openList.Remove();
+            // skip states that were already developed
+            if (!closedList.Add(keys.Key(current.getState()))) {
+                this.metrics.Duplicate();
+                continue;
+            }
             this.developedNodes++;
+            this.metrics.Expanded();
+            this.metrics.Closed(closedList.Size());
             // if we reached the goal state, we return it
             if (current.equals(goalState)) {
                 this.goalState = current;
+                this.metrics.Finish();
                 return current;
             }
-            // add all the current node's successors to the queue
-            openList.addAll(logic.GetPossibleMoves(current));
+            // add the current node's successors that weren't developed yet to the queue
+            int count = logic.GenerateMoves(current, moves);
+            this.metrics.Generated(count);
+            this.metrics.Evaluated(count);
+            for (int i = 0; i < count; i++) {
+                if (!closedList.Contains(keys.Find(moves[i].getState())))
+                    openList.Add(moves[i]);
+                else
+                    this.metrics.Duplicate();
+            }
+            this.metrics.Frontier(openList.Size());
+        }
+        this.metrics.Finish();
+        return null;
+    }
+
+    /**
+     * SearchArena is the search of the packed states, with the nodes in a NodeArena.
+     * @param logic - the tiles game moving logic, to rebuild the track with
+     * @return the goal state
+     */
+    private Node SearchArena(MovesLogic logic) {
+        // the thread's buffers are reused from search to search
+        SearchBuffers buffers = SearchBuffers.Acquire();
+        try {
+            return SearchArena(logic, buffers.getArena(), buffers.getQueue(), buffers.getClosedList());
+        } finally {
+            buffers.Release();
+        }
+    }
+
+    /**
+     * SearchArena searches with the given buffers, empty.
+     * @param logic - the tiles game moving logic, to rebuild the track with
+     * @param arena - the search tree
+     * @param openList - the open list
+     * @param closedList - the closed list
+     * @return the goal state
+     */
+    private Node SearchArena(MovesLogic logic, NodeArena arena, IntQueue openList, LongHashSet closedList) {
+        MoveTable table = this.shape.getMoves();
+        int cells = this.shape.getCells();
+        long goal = this.goalState.getState().Key();
+        openList.Add(arena.Add(this.initialState.getState().Key(), NodeArena.NO_PARENT, Node.NO_OPERATOR, 0));
+        while (!openList.IsEmpty()) {
+            int current = openList.Remove();
+            long tiles = arena.Tiles(current);
+            // skip states that were already developed
+            if (!closedList.Add(tiles)) {
+                this.metrics.Duplicate();
+                continue;
+            }
+            this.developedNodes++;
+            this.metrics.Expanded();
+            this.metrics.Closed(closedList.Size());
+            if (tiles == goal) {
+                this.metrics.Finish();
+                char[] track = arena.Track(current);
+                return BuildTrack(logic, track, track.length);
+            }
+            // add the successors that weren't developed yet, in the order U, D, L, R
+            int blank = PackedState.Blank(tiles, cells);
+            int[] targets = table.Targets(blank);
+            char[] directions = table.Directions(blank);
+            for (int i = 0; i < targets.length; i++) {
+                long child = PackedState.MoveBlank(tiles, blank, targets[i]);
+                if (!closedList.Contains(child))
+                    openList.Add(arena.Add(child, current, directions[i], arena.Depth(current) + 1));
+                else
+                    this.metrics.Duplicate();
+            }
+            this.metrics.Generated(targets.length);
+            this.metrics.Frontier(openList.Size());
         }
+        this.metrics.Finish();
         return null;
     }
 
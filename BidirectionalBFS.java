@@ -0,0 +1,136 @@
+/**
+ * BidirectionalBFS searches breadth-first from the initial state and from the goal state at the same time,
+ * a whole layer of the smaller side each turn, until the two searches meet. The moves are reversible, so the
+ * backward search uses the same moves logic, and it's moves are inverted on the way back to the goal.
+ * Each side needs only about half the depth, so the searches are far smaller than a single BFS.
+ */
+public class BidirectionalBFS extends Algorithm {
+
+    /**
+     * Constructor, of a square board with the standard goal.
+     * @param size - the board size
+     * @param initState - the matrix in a string form
+     */
+    public BidirectionalBFS(int size, String initState) {
+        this(Shape.Square(size), PuzzleValidator.Parse(Shape.Square(size), initState));
+    }
+
+    /**
+     * Constructor.
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     */
+    public BidirectionalBFS(Shape shape, int[] tiles) {
+        super(shape, tiles);
+    }
+
+    @Override
+    public int Cost() {
+        // the cost here is simply the depth of the result node.
+        return this.goalState.getDepth();
+    }
+
+    @Override
+    public Node Search(MovesLogic logic) {
+        this.metrics.Start();
+        if (this.initialState.equals(this.goalState)) {
+            this.metrics.Finish();
+            return BuildTrack(logic, new char[0], 0);
+        }
+        // the backward search starts from a root of it's own at depth 0
+        Node goalRoot = new Node(this.goalState.getState(), null, Node.NO_OPERATOR, 0);
+        Frontier forward = new RingDeque();
+        Frontier backward = new RingDeque();
+        // the visited maps of both sides, each search looks for it's successors in the other's map
+        LongNodeMap forwardVisited = new LongNodeMap();
+        LongNodeMap backwardVisited = new LongNodeMap();
+        // the bigger boards' hashes may collide, so both maps keep exact keys
+        StateKeys keys = new StateKeys();
+        forward.Add(this.initialState);
+        forwardVisited.Put(keys.Key(this.initialState.getState()), this.initialState);
+        backward.Add(goalRoot);
+        backwardVisited.Put(keys.Key(goalRoot.getState()), goalRoot);
+        Node[] moves = new Node[MovesLogic.MAX_MOVES];
+        while (!forward.IsEmpty() && !backward.IsEmpty()) {
+            char[] track;
+            if (forward.Size() <= backward.Size())
+                track = DevelopLayer(logic, forward, forwardVisited, backwardVisited, keys, moves, true);
+            else
+                track = DevelopLayer(logic, backward, backwardVisited, forwardVisited, keys, moves, false);
+            this.metrics.Frontier(forward.Size() + backward.Size());
+            this.metrics.Closed(forwardVisited.Size() + backwardVisited.Size());
+            if (track != null) {
+                this.metrics.Finish();
+                return BuildTrack(logic, track, track.length);
+            }
+        }
+        this.metrics.Finish();
+        return null;
+    }
+
+    /**
+     * DevelopLayer develops all the nodes of a side's current layer. The whole layer is developed even after the
+     * sides meet, so the shortest of the meetings is the one that is kept.
+     * @param logic - the tiles game moving logic
+     * @param frontier - the side's open list
+     * @param visited - the side's visited map
+     * @param otherVisited - the other side's visited map
+     * @param keys - the exact keys of the states, shared by both sides
+     * @param moves - the buffer for the successors
+     * @param isForward - true if this is the side of the initial state
+     * @return the full track from the initial state to the goal, or null if the sides didn't meet
+     */
+    private char[] DevelopLayer(MovesLogic logic, Frontier frontier, LongNodeMap visited, LongNodeMap otherVisited,
+            StateKeys keys, Node[] moves, boolean isForward) {
+        Node bestMeeting = null;
+        Node bestOther = null;
+        int layerSize = frontier.Size();
+        for (int n = 0; n < layerSize; n++) {
+            Node current = frontier.Remove();
+            this.developedNodes++;
+            this.metrics.Expanded();
+            int count = logic.GenerateMoves(current, moves);
+            this.metrics.Generated(count);
+            this.metrics.Evaluated(count);
+            for (int i = 0; i < count; i++) {
+                long key = keys.Key(moves[i].getState());
+                if (visited.Get(key) != null) {
+                    this.metrics.Duplicate();
+                    continue;
+                }
+                visited.Put(key, moves[i]);
+                frontier.Add(moves[i]);
+                Node other = otherVisited.Get(key);
+                if (other != null && (bestMeeting == null
+                        || moves[i].getDepth() + other.getDepth() < bestMeeting.getDepth() + bestOther.getDepth())) {
+                    bestMeeting = moves[i];
+                    bestOther = other;
+                }
+            }
+        }
+        if (bestMeeting == null)
+            return null;
+        if (isForward)
+            return Splice(bestMeeting, bestOther);
+        return Splice(bestOther, bestMeeting);
+    }
+
+    /**
+     * Splice joins the forward path to the meeting state with the inverted backward path from it.
+     * @param forwardNode - the meeting state's node of the forward search
+     * @param backwardNode - the meeting state's node of the backward search
+     * @return the track from the initial state to the goal
+     */
+    private char[] Splice(Node forwardNode, Node backwardNode) {
+        char[] track = new char[forwardNode.getDepth() + backwardNode.getDepth()];
+        // the forward path is read from the meeting back to the initial state
+        int i = forwardNode.getDepth();
+        for (Node current = forwardNode; current.getParent() != null; current = current.getParent())
+            track[--i] = current.getOperator();
+        // each backward move led from the parent to the child, so going to the goal undoes it
+        i = forwardNode.getDepth();
+        for (Node current = backwardNode; current.getParent() != null; current = current.getParent())
+            track[i++] = MoveTable.Opposite(current.getOperator());
+        return track;
+    }
+}
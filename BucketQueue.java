@@ -0,0 +1,113 @@
+import java.util.Arrays;
+
+/**
+ * BucketQueue is the open list of A*. The estimates f(n) are small integers, so instead of a heap it holds a
+ * bucket for every estimate, and adding or removing a node takes O(1).
+ * By default each bucket is a first in, first out queue, so the nodes are developed in the order they were added,
+ * which is their creation order. The other tie breaking policies make the buckets stacks, or split them again
+ * by the heuristic value h(n).
+ */
+public class BucketQueue implements Frontier {
+
+    private final TieBreaking policy;
+    // true for the inner queues of a bucket, that are keyed by the heuristic value instead of the estimate
+    private final boolean byHeuristic;
+    private Frontier[] buckets;
+    private int minimum;
+    private int size;
+
+    /**
+     * Constructor, first in, first out within the buckets.
+     */
+    public BucketQueue() {
+        this(TieBreaking.FIFO);
+    }
+
+    /**
+     * Constructor.
+     * @param policy - the order of the nodes of the same estimate
+     */
+    public BucketQueue(TieBreaking policy) {
+        this(policy, false);
+    }
+
+    /**
+     * Constructor.
+     * @param policy - the order of the nodes of the same estimate
+     * @param byHeuristic - true to key the buckets by the heuristic value
+     */
+    private BucketQueue(TieBreaking policy, boolean byHeuristic) {
+        this.policy = policy;
+        this.byHeuristic = byHeuristic;
+        this.buckets = new Frontier[64];
+        this.minimum = Integer.MAX_VALUE;
+        this.size = 0;
+    }
+
+    @Override
+    public void Add(Node node) {
+        Add(node, this.byHeuristic ? node.getHeuristic() : node.getEstimate());
+    }
+
+    /**
+     * Add adds a node by a key that the search calculated instead of it's estimate, like a weighted estimate.
+     * @param node - the node
+     * @param estimate - the node's key, a small non negative integer
+     */
+    public void Add(Node node, int estimate) {
+        if (estimate >= this.buckets.length)
+            this.buckets = Arrays.copyOf(this.buckets, Math.max(this.buckets.length * 2, estimate + 1));
+        if (this.buckets[estimate] == null)
+            this.buckets[estimate] = NewBucket();
+        this.buckets[estimate].Add(node);
+        if (estimate < this.minimum)
+            this.minimum = estimate;
+        this.size++;
+    }
+
+    @Override
+    public Node Remove() {
+        // the lowest bucket may have been emptied by the previous removals
+        while (this.buckets[this.minimum] == null || this.buckets[this.minimum].IsEmpty())
+            this.minimum++;
+        this.size--;
+        Node node = this.buckets[this.minimum].Remove();
+        if (this.size == 0)
+            this.minimum = Integer.MAX_VALUE;
+        return node;
+    }
+
+    @Override
+    public boolean IsEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int Size() {
+        return this.size;
+    }
+
+    /**
+     * NewBucket
+     * @return an empty bucket, by the policy
+     */
+    private Frontier NewBucket() {
+        if (this.policy.ByHeuristic() && !this.byHeuristic)
+            return new BucketQueue(this.policy, true);
+        if (this.policy.IsLifo())
+            return new ArrayStack();
+        return new RingDeque();
+    }
+
+    /**
+     * MinimumEstimate
+     * @return the lowest estimate in the open list, Integer.MAX_VALUE if it is empty
+     */
+    public int MinimumEstimate() {
+        if (this.size == 0)
+            return Integer.MAX_VALUE;
+        while (this.buckets[this.minimum] == null || this.buckets[this.minimum].IsEmpty())
+            this.minimum++;
+        return this.minimum;
+    }
+}
@@ -0,0 +1,74 @@
+import java.util.Arrays;
+
+/**
+ * ByteState keeps the boards that are too big to be packed in a long, one byte per tile.
+ */
+public class ByteState extends State {
+
+    private byte[] tiles;
+
+    /**
+     * Constructor.
+     * @param shape - the board
+     */
+    public ByteState(Shape shape) {
+        super(shape);
+        this.tiles = new byte[shape.getCells()];
+    }
+
+    /**
+     * Copy constructor.
+     * @param other - the state to copy
+     */
+    private ByteState(ByteState other) {
+        super(other);
+        this.tiles = other.tiles.clone();
+    }
+
+    @Override
+    public int Get(int index) {
+        return this.tiles[index] & 0xFF;
+    }
+
+    @Override
+    public void Set(int index, int value) {
+        UpdateHash(index, Get(index), value);
+        this.tiles[index] = (byte) value;
+        if (value == 0)
+            this.blank = index;
+    }
+
+    @Override
+    public void MoveBlank(int target) {
+        int tile = Get(target);
+        UpdateHash(this.blank, 0, tile);
+        UpdateHash(target, tile, 0);
+        this.tiles[this.blank] = this.tiles[target];
+        this.tiles[target] = 0;
+        this.blank = target;
+    }
+
+    @Override
+    public State Copy() {
+        return new ByteState(this);
+    }
+
+    @Override
+    public long Key() {
+        // the tiles don't fit in a long, so the 64 bit hash stands for them. it isn't exact, so the closed lists
+        // number these states by StateKeys
+        return this.hash;
+    }
+
+    /**
+     * this method compares the states tile by tile.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ByteState))
+            return false;
+        if (this.hash != ((ByteState) other).hash)
+            return false;
+        return Arrays.equals(this.tiles, ((ByteState) other).tiles);
+    }
+}
@@ -0,0 +1,204 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DistanceTable holds the exact number of moves from every solvable state of the 3x3 board to the standard goal.
+ * The 9!/2 solvable states are numbered without gaps by a perfect hash - the 0's cell, and the Lehmer code of the
+ * other tiles in the order of the cells, halved: the two orders of the last two tiles have opposite parities, so
+ * only one of them is solvable. The distances are kept modulo 16 in 4 bits, about 90KB for the whole board, since
+ * a move always changes the distance by exactly 1 - the neighbour that is a step closer is the only one whose
+ * distance is one less modulo 16, so the optimal solution is followed from the table alone.
+ * The table is built once by a breadth-first search backwards from the goal state, and saved to a binary file
+ * that is memory-mapped when it is loaded.
+ */
+public class DistanceTable {
+
+    /**
+     * the rows' and columns' size of the board.
+     */
+    public static final int SIZE = 3;
+
+    /**
+     * the number of solvable states, 9! / 2.
+     */
+    public static final int STATES = 181440;
+
+    /**
+     * the packed tiles of the standard goal state.
+     */
+    public static final long GOAL = 0x087654321L;
+
+    private static final int MAGIC = 0x44535431;
+    private static final int CELLS = SIZE * SIZE;
+    // the orders of the 8 tiles of one cell of the 0, 8! / 2
+    private static final int ORDERS = STATES / CELLS;
+    private static final int[] FACTORIALS = {1, 1, 2, 6, 24, 120, 720, 5040};
+    private static final Map<String, DistanceTable> opened = new HashMap<String, DistanceTable>();
+
+    private final ByteBuffer table;
+
+    /**
+     * Constructor.
+     * @param table - the distances modulo 16 of the states, two to a byte, the lower one in the low bits
+     */
+    private DistanceTable(ByteBuffer table) {
+        this.table = table;
+    }
+
+    /**
+     * Open returns the table of a file, which is loaded once and shared, or builds it and saves it if the file
+     * does not exist yet.
+     * @param path - the file
+     * @return the table
+     * @throws IOException if the file can't be read or written
+     */
+    public static synchronized DistanceTable Open(String path) throws IOException {
+        String key = new File(path).getAbsolutePath();
+        DistanceTable distances = opened.get(key);
+        if (distances != null)
+            return distances;
+        if (new File(path).exists()) {
+            distances = Load(path);
+        } else {
+            distances = Build();
+            distances.Save(path);
+        }
+        opened.put(key, distances);
+        return distances;
+    }
+
+    /**
+     * Build searches the distances of all the states from the goal state.
+     * @return the table, held in memory
+     */
+    public static DistanceTable Build() {
+        byte[] table = new byte[STATES / 2];
+        long[] seen = new long[(STATES >>> 6) + 1];
+        // the packed states of the search, in the order they were reached, which is the order of their distances
+        long[] queue = new long[STATES];
+        queue[0] = GOAL;
+        int size = 1;
+        Mark(seen, Rank(GOAL));
+        MoveTable moves = MoveTable.For(SIZE, SIZE);
+        int layerEnd = 1;
+        int distance = 0;
+        for (int head = 0; head < size; head++) {
+            if (head == layerEnd) {
+                layerEnd = size;
+                distance++;
+            }
+            long state = queue[head];
+            Put(table, Rank(state), distance);
+            int blank = PackedState.Blank(state, CELLS);
+            for (int target : moves.Targets(blank)) {
+                long child = PackedState.MoveBlank(state, blank, target);
+                if (Mark(seen, Rank(child)))
+                    queue[size++] = child;
+            }
+        }
+        if (size != STATES)
+            throw new IllegalStateException("the search reached " + size + " states instead of " + STATES);
+        return new DistanceTable(ByteBuffer.wrap(table));
+    }
+
+    /**
+     * Load maps a table file to memory.
+     * @param path - the file
+     * @return the table
+     * @throws IOException if the file can't be read or is not a distance table
+     */
+    public static DistanceTable Load(String path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r");
+                FileChannel channel = file.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() != 8 + STATES / 2 || buffer.getInt() != MAGIC || buffer.getInt() != SIZE)
+                throw new IOException(path + " is not a distance table of the " + SIZE + "x" + SIZE + " board");
+            return new DistanceTable(buffer.slice(8, STATES / 2));
+        }
+    }
+
+    /**
+     * Save writes the table to a file: the magic number and the board size, followed by the distances.
+     * @param path - the file
+     * @throws IOException if the file can't be written
+     */
+    public void Save(String path) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(path)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(SIZE);
+            for (int i = 0; i < this.table.limit(); i++)
+                output.writeByte(this.table.get(i));
+        }
+    }
+
+    /**
+     * Distance
+     * @param packed - the packed tiles of a solvable state of the board
+     * @return the number of moves from the state to the goal, modulo 16
+     */
+    public int Distance(long packed) {
+        int rank = Rank(packed);
+        return (this.table.get(rank >>> 1) >>> ((rank & 1) << 2)) & 0xF;
+    }
+
+    /**
+     * Rank is the perfect hash of the solvable states, a number from 0 to STATES - 1.
+     * @param packed - the packed tiles of a solvable state
+     * @return the 0's cell times 8! / 2, plus half the Lehmer code of the other tiles
+     */
+    public static int Rank(long packed) {
+        int blank = 0;
+        int code = 0;
+        int seen = 0;
+        int tiles = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int tile = (int) (packed >>> (cell << 2)) & 0xF;
+            if (tile == 0) {
+                blank = cell;
+                continue;
+            }
+            // the smaller tiles that come after this one, the ones that weren't seen yet
+            int smaller = tile - 1 - Integer.bitCount(seen & ((1 << tile) - 1));
+            seen |= 1 << tile;
+            code += smaller * FACTORIALS[CELLS - 2 - tiles];
+            tiles++;
+        }
+        // the last two tiles only add 0 or 1, which the solvable state's parity decides
+        return blank * ORDERS + (code >>> 1);
+    }
+
+    /**
+     * Put sets a state's distance in the table.
+     * @param table - the table
+     * @param rank - the state's rank
+     * @param distance - the distance, kept modulo 16
+     */
+    private static void Put(byte[] table, int rank, int distance) {
+        int shift = (rank & 1) << 2;
+        table[rank >>> 1] = (byte) ((table[rank >>> 1] & ~(0xF << shift)) | ((distance & 0xF) << shift));
+    }
+
+    /**
+     * Mark marks a state as reached.
+     * @param seen - the bits of the reached states
+     * @param rank - the state's rank
+     * @return true if it wasn't reached before
+     */
+    private static boolean Mark(long[] seen, int rank) {
+        long bit = 1L << (rank & 63);
+        if ((seen[rank >>> 6] & bit) != 0)
+            return false;
+        seen[rank >>> 6] |= bit;
+        return true;
+    }
+}
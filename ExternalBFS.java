@@ -0,0 +1,480 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * ExternalBFS is a breadth-first search that keeps it's layers on the disk instead of the heap, so it can search
+ * spaces that are far bigger than the memory. Each layer is a file of sorted packed states (boards of up to 16
+ * cells, as in PackedState). The successors of a layer are sorted in memory sized runs, and the runs are merged
+ * into the next layer while the duplicates are dropped - within the runs, and against the two previous layers,
+ * since every neighbour of a layer's state is in one of the layers next to it.
+ * The track is rebuilt backwards from the goal, by looking for a neighbour of each state in the layer before it,
+ * with a binary search of the memory mapped layer file.
+ * It can also enumerate the whole space from the initial state, and count the states of every depth.
+ */
+public class ExternalBFS extends Algorithm {
+
+    public static final int DEFAULT_MEMORY = 1 << 23;
+    private static final int IO_BUFFER = 1 << 16;
+    private static final int CHUNK_SHIFT = 27;
+    private static final int NOT_FOUND = -1;
+
+    private final Path directory;
+    private final int memory;
+    private final MoveTable table;
+    private final int cells;
+    private Path work;
+    private long[] buffer;
+    private int buffered;
+    private List<Path> runs;
+    private int depth;
+
+    /**
+     * Constructor, of a square board with the standard goal, with the layers in the temporary directory and
+     * 64MB of successors in memory.
+     * @param size - the board size
+     * @param initState - the matrix in a string form
+     */
+    public ExternalBFS(int size, String initState) {
+        this(Shape.Square(size), PuzzleValidator.Parse(Shape.Square(size), initState),
+                Path.of(System.getProperty("java.io.tmpdir")), DEFAULT_MEMORY);
+    }
+
+    /**
+     * Constructor.
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     * @param directory - the directory to write the layers in
+     * @param memory - the number of successors to sort in memory before they are written as a run
+     */
+    public ExternalBFS(Shape shape, int[] tiles, Path directory, int memory) {
+        super(shape, tiles);
+        if (shape.getCells() > PackedState.MAX_CELLS)
+            throw new IllegalArgumentException("the external BFS packs the states into longs, it is limited to "
+                    + PackedState.MAX_CELLS + " cells");
+        this.directory = directory;
+        this.memory = memory;
+        this.table = shape.getMoves();
+        this.cells = shape.getCells();
+        this.depth = -1;
+    }
+
+    @Override
+    public int Cost() {
+        // the cost here is simply the depth of the result node.
+        return this.goalState.getDepth();
+    }
+
+    @Override
+    public Node Search(MovesLogic logic) {
+        this.metrics.Start();
+        long goal = this.goalState.getState().Key();
+        try {
+            Open();
+            int found = Enumerate(goal, null);
+            if (found == NOT_FOUND) {
+                this.metrics.Finish();
+                return null;
+            }
+            char[] track = Track(goal, found);
+            this.metrics.Finish();
+            return BuildTrack(logic, track, found);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            Close();
+        }
+    }
+
+    /**
+     * Histogram enumerates all the states that can be reached from the initial state, and counts them by their
+     * depth. Starting from the goal state, it counts the states by the length of their optimal solution.
+     * Only three layers are kept on the disk at a time.
+     * @return the number of states of every depth
+     * @throws IOException if the layers can't be written or read
+     */
+    public long[] Histogram() throws IOException {
+        this.metrics.Start();
+        List<Long> counts = new ArrayList<Long>();
+        try {
+            Open();
+            Enumerate(Long.MIN_VALUE, counts);
+        } finally {
+            Close();
+        }
+        this.metrics.Finish();
+        long[] histogram = new long[counts.size()];
+        for (int i = 0; i < histogram.length; i++)
+            histogram[i] = counts.get(i);
+        return histogram;
+    }
+
+    /**
+     * Enumerate develops the layers one by one, until the goal is developed or a layer is empty.
+     * @param goal - the key of the goal state
+     * @param counts - the list to add the layers' sizes to, or null to stop at the goal and keep all the layers
+     * @return the goal's depth, or NOT_FOUND
+     * @throws IOException if the layers can't be written or read
+     */
+    private int Enumerate(long goal, List<Long> counts) throws IOException {
+        try (LongWriter first = new LongWriter(Layer(0))) {
+            first.Write(this.initialState.getState().Key());
+        }
+        long[] sizes = {0, 0, 1};
+        for (this.depth = 0; sizes[2] > 0; this.depth++) {
+            if (counts != null)
+                counts.add(sizes[2]);
+            if (DevelopLayer(goal, counts == null))
+                return this.depth;
+            long size = MergeRuns();
+            sizes[0] = sizes[1];
+            sizes[1] = sizes[2];
+            sizes[2] = size;
+            this.metrics.Frontier(size);
+            this.metrics.Closed(sizes[0] + sizes[1]);
+            // the histogram doesn't rebuild a track, so the layers that can't have a neighbour are deleted
+            if (counts != null && this.depth >= 1)
+                Files.deleteIfExists(Layer(this.depth - 1));
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * DevelopLayer streams the current layer and writes the successors of it's states as sorted runs.
+     * @param goal - the key of the goal state
+     * @param stopAtGoal - true to stop if the goal is in the layer
+     * @return true if the goal was found
+     * @throws IOException if the layer can't be read or the runs can't be written
+     */
+    private boolean DevelopLayer(long goal, boolean stopAtGoal) throws IOException {
+        this.runs = new ArrayList<Path>();
+        this.buffered = 0;
+        try (LongReader reader = new LongReader(Layer(this.depth))) {
+            while (reader.Next()) {
+                long tiles = reader.current;
+                this.developedNodes++;
+                this.metrics.Expanded();
+                if (stopAtGoal && tiles == goal)
+                    return true;
+                int blank = PackedState.Blank(tiles, this.cells);
+                int[] targets = this.table.Targets(blank);
+                for (int target : targets) {
+                    if (this.buffered == this.buffer.length)
+                        WriteRun();
+                    this.buffer[this.buffered++] = PackedState.MoveBlank(tiles, blank, target);
+                }
+                this.metrics.Generated(targets.length);
+            }
+        }
+        WriteRun();
+        return false;
+    }
+
+    /**
+     * WriteRun sorts the buffered successors and writes them, without duplicates, as a run file.
+     * @throws IOException if the run can't be written
+     */
+    private void WriteRun() throws IOException {
+        if (this.buffered == 0)
+            return;
+        Arrays.sort(this.buffer, 0, this.buffered);
+        Path run = this.work.resolve("run-" + this.runs.size() + ".bin");
+        try (LongWriter writer = new LongWriter(run)) {
+            for (int i = 0; i < this.buffered; i++) {
+                if (i > 0 && this.buffer[i] == this.buffer[i - 1]) {
+                    this.metrics.Duplicate();
+                    continue;
+                }
+                writer.Write(this.buffer[i]);
+            }
+        }
+        this.runs.add(run);
+        this.buffered = 0;
+    }
+
+    /**
+     * MergeRuns merges the runs of the current layer's successors into the next layer, without the states that
+     * are in another run, in the current layer or in the one before it.
+     * @return the size of the next layer
+     * @throws IOException if the files can't be written or read
+     */
+    private long MergeRuns() throws IOException {
+        PriorityQueue<LongReader> heads = new PriorityQueue<LongReader>(
+                Math.max(1, this.runs.size()), Comparator.comparingLong(reader -> reader.current));
+        long count = 0;
+        try (LongReader current = new LongReader(Layer(this.depth));
+                LongReader previous = new LongReader(this.depth > 0 ? Layer(this.depth - 1) : null);
+                LongWriter next = new LongWriter(Layer(this.depth + 1))) {
+            for (Path run : this.runs) {
+                LongReader reader = new LongReader(run);
+                if (reader.Next())
+                    heads.add(reader);
+                else
+                    reader.close();
+            }
+            boolean inCurrent = current.Next();
+            boolean inPrevious = previous.Next();
+            boolean any = false;
+            long last = 0L;
+            while (!heads.isEmpty()) {
+                LongReader head = heads.poll();
+                long tiles = head.current;
+                if (head.Next())
+                    heads.add(head);
+                else
+                    head.close();
+                // both the runs and the layers are sorted, so the layers are merged along with them
+                while (inCurrent && current.current < tiles)
+                    inCurrent = current.Next();
+                while (inPrevious && previous.current < tiles)
+                    inPrevious = previous.Next();
+                if ((any && tiles == last) || (inCurrent && current.current == tiles)
+                        || (inPrevious && previous.current == tiles)) {
+                    this.metrics.Duplicate();
+                    continue;
+                }
+                any = true;
+                last = tiles;
+                next.Write(tiles);
+                count++;
+            }
+        } finally {
+            for (LongReader head : heads)
+                head.close();
+        }
+        for (Path run : this.runs)
+            Files.deleteIfExists(run);
+        return count;
+    }
+
+    /**
+     * Track rebuilds the moves from the initial state to the goal, going back from the goal through a neighbour
+     * in every layer before it.
+     * @param goal - the key of the goal state
+     * @param goalDepth - the goal's layer
+     * @return the moves
+     * @throws IOException if the layers can't be mapped
+     */
+    private char[] Track(long goal, int goalDepth) throws IOException {
+        char[] track = new char[goalDepth];
+        long tiles = goal;
+        for (int layer = goalDepth - 1; layer >= 0; layer--) {
+            MappedLayer before = new MappedLayer(Layer(layer));
+            int blank = PackedState.Blank(tiles, this.cells);
+            long parent = 0L;
+            int parentBlank = -1;
+            for (int target : this.table.Targets(blank)) {
+                long neighbour = PackedState.MoveBlank(tiles, blank, target);
+                if (before.Contains(neighbour)) {
+                    parent = neighbour;
+                    parentBlank = target;
+                    break;
+                }
+            }
+            if (parentBlank < 0)
+                throw new IllegalStateException("layer " + layer + " has no neighbour of the track");
+            // the parent's move is the one that takes it's blank to the child's blank
+            int[] targets = this.table.Targets(parentBlank);
+            for (int i = 0; i < targets.length; i++) {
+                if (targets[i] == blank)
+                    track[layer] = this.table.Directions(parentBlank)[i];
+            }
+            tiles = parent;
+        }
+        return track;
+    }
+
+    /**
+     * Open creates the working directory and the successors' buffer.
+     * @throws IOException if the directory can't be created
+     */
+    private void Open() throws IOException {
+        Files.createDirectories(this.directory);
+        this.work = Files.createTempDirectory(this.directory, "bfs-");
+        this.buffer = new long[this.memory];
+    }
+
+    /**
+     * Close deletes the working directory with all it's files.
+     */
+    private void Close() {
+        this.buffer = null;
+        if (this.work == null)
+            return;
+        try (Stream<Path> files = Files.list(this.work)) {
+            for (Path file : (Iterable<Path>) files::iterator)
+                Files.deleteIfExists(file);
+            Files.deleteIfExists(this.work);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        this.work = null;
+    }
+
+    /**
+     * Layer
+     * @param layer - the depth
+     * @return the file of that depth's states
+     */
+    private Path Layer(int layer) {
+        return this.work.resolve("layer-" + layer + ".bin");
+    }
+
+    /**
+     * LongReader streams the longs of a file through a direct buffer.
+     * A reader of no file is empty.
+     */
+    private static final class LongReader implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        long current;
+
+        /**
+         * Constructor.
+         * @param file - the file, or null
+         * @throws IOException if the file can't be opened
+         */
+        LongReader(Path file) throws IOException {
+            this.channel = file == null ? null : FileChannel.open(file, StandardOpenOption.READ);
+            this.buffer = ByteBuffer.allocateDirect(IO_BUFFER);
+            this.buffer.flip();
+        }
+
+        /**
+         * Next reads the next long into current.
+         * @return false if the file is over
+         * @throws IOException if the file can't be read
+         */
+        boolean Next() throws IOException {
+            if (this.channel == null)
+                return false;
+            if (this.buffer.remaining() < Long.BYTES) {
+                this.buffer.compact();
+                int read = 0;
+                while (this.buffer.position() < Long.BYTES && read >= 0)
+                    read = this.channel.read(this.buffer);
+                this.buffer.flip();
+                if (this.buffer.remaining() < Long.BYTES)
+                    return false;
+            }
+            this.current = this.buffer.getLong();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.channel != null)
+                this.channel.close();
+        }
+    }
+
+    /**
+     * LongWriter writes longs to a new file through a direct buffer.
+     */
+    private static final class LongWriter implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructor.
+         * @param file - the file, it is replaced if it exists
+         * @throws IOException if the file can't be created
+         */
+        LongWriter(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocateDirect(IO_BUFFER);
+        }
+
+        /**
+         * Write
+         * @param value - the long to write
+         * @throws IOException if the file can't be written
+         */
+        void Write(long value) throws IOException {
+            if (!this.buffer.hasRemaining())
+                Flush();
+            this.buffer.putLong(value);
+        }
+
+        /**
+         * Flush writes the buffered longs to the file.
+         * @throws IOException if the file can't be written
+         */
+        private void Flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining())
+                this.channel.write(this.buffer);
+            this.buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            Flush();
+            this.channel.close();
+        }
+    }
+
+    /**
+     * MappedLayer maps a sorted layer file to memory, in chunks since a single mapping is limited to 2GB.
+     */
+    private static final class MappedLayer {
+
+        private final MappedByteBuffer[] chunks;
+        private final long count;
+
+        /**
+         * Constructor.
+         * @param file - the layer file
+         * @throws IOException if the file can't be mapped
+         */
+        MappedLayer(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                this.count = channel.size() / Long.BYTES;
+                long chunkLongs = 1L << CHUNK_SHIFT;
+                this.chunks = new MappedByteBuffer[(int) ((this.count + chunkLongs - 1) >>> CHUNK_SHIFT)];
+                for (int i = 0; i < this.chunks.length; i++) {
+                    long first = i * chunkLongs;
+                    long length = Math.min(chunkLongs, this.count - first) * Long.BYTES;
+                    this.chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * Long.BYTES, length);
+                }
+            }
+        }
+
+        /**
+         * Contains searches the layer with a binary search.
+         * @param key - the packed tiles
+         * @return true if the state is in the layer
+         */
+        boolean Contains(long key) {
+            long low = 0;
+            long high = this.count - 1;
+            while (low <= high) {
+                long middle = (low + high) >>> 1;
+                long value = this.chunks[(int) (middle >>> CHUNK_SHIFT)]
+                        .getLong((int) (middle & ((1L << CHUNK_SHIFT) - 1)) * Long.BYTES);
+                if (value < key)
+                    low = middle + 1;
+                else if (value > key)
+                    high = middle - 1;
+                else
+                    return true;
+            }
+            return false;
+        }
+    }
+}
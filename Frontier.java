@@ -0,0 +1,30 @@
+/**
+ * Frontier is the open list of a search - the nodes that were generated and are waiting to be developed.
+ * Each search chooses the implementation that matches the order it develops the nodes in.
+ */
+public interface Frontier {
+
+    /**
+     * Add adds a node to the open list.
+     * @param node - the node
+     */
+    void Add(Node node);
+
+    /**
+     * Remove removes the next node to develop from the open list.
+     * @return that node
+     */
+    Node Remove();
+
+    /**
+     * IsEmpty
+     * @return true if there are no nodes in the open list
+     */
+    boolean IsEmpty();
+
+    /**
+     * Size
+     * @return the number of nodes in the open list
+     */
+    int Size();
+}
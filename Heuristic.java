@@ -0,0 +1,24 @@
+/**
+ * Heuristic is an admissible estimate of the number of moves from a state to the goal state, h(n).
+ * Since a move slides a single tile, implementations can update a successor's value from it's parent's.
+ */
+public interface Heuristic {
+
+    /**
+     * Evaluate calculates the estimate of a state from scratch.
+     * @param state - the state
+     * @return the estimated distance from the goal state
+     */
+    int Evaluate(State state);
+
+    /**
+     * Update calculates the estimate of a state from it's parent's estimate.
+     * @param state - the state, after the move
+     * @param distance - the parent's estimate
+     * @param tile - the tile that was moved
+     * @param from - the cell the tile was moved from
+     * @param to - the cell the tile was moved to
+     * @return the state's estimate
+     */
+    int Update(State state, int distance, int tile, int from, int to);
+}
@@ -0,0 +1,113 @@
+import java.util.Arrays;
+
+/**
+ * IDAStar algorithm searches depth-first like IDS, but it's limit is on the estimated cost f(n) = g(n) + h(n)
+ * instead of the depth, and each iteration raises it to the smallest estimate that exceeded it.
+ * It makes the moves on a single board and undoes them on the way back, so it's memory is only the current path.
+ */
+public class IDAStar extends Algorithm {
+
+    private static final int FOUND = -1;
+
+    private int threshold;
+    private State board;
+    private char[] path;
+    private Heuristic heuristic;
+    private MoveTable table;
+
+    /**
+     * Constructor, of a square board with the standard goal.
+     * @param size - board size
+     * @param initState - the matrix in a string form
+     */
+    public IDAStar(int size, String initState) {
+        this(Shape.Square(size), PuzzleValidator.Parse(Shape.Square(size), initState));
+    }
+
+    /**
+     * Constructor.
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     */
+    public IDAStar(Shape shape, int[] tiles) {
+        super(shape, tiles);
+        this.threshold = -1;
+    }
+
+    @Override
+    public int Cost() {
+        // the cost here is simply the depth of the result node.
+        return this.goalState.getDepth();
+    }
+
+    @Override
+    public Node Search(MovesLogic logic) {
+        this.metrics.Start();
+        this.heuristic = logic.getHeuristic();
+        this.initialState.setHeuristic(this.heuristic.Evaluate(this.initialState.getState()));
+        this.metrics.Evaluated(1);
+        this.board = this.initialState.getState().Copy();
+        this.table = this.shape.getMoves();
+        this.path = new char[64];
+        this.threshold = this.initialState.getEstimate();
+        // while the goal is not found, raise the threshold to the smallest estimate that was cut off
+        while (true) {
+            this.metrics.StartIteration(this.threshold);
+            int result = LimitedSearch(0, this.initialState.getHeuristic(), Node.NO_OPERATOR);
+            this.metrics.EndIteration();
+            if (result == FOUND)
+                break;
+            this.threshold = result;
+        }
+        this.metrics.Finish();
+        // the path ends at the goal's depth, which is the last threshold
+        return BuildTrack(logic, this.path, this.threshold);
+    }
+
+    /**
+     * LimitedSearch searches the board depth-first, as long as the estimate is under the threshold.
+     * @param depth - the current depth, g(n)
+     * @param heuristic - the current distance from the goal, h(n)
+     * @param previous - the direction of the last move
+     * @return FOUND if the goal was reached, otherwise the smallest estimate that exceeded the threshold
+     */
+    private int LimitedSearch(int depth, int heuristic, char previous) {
+        int estimate = depth + heuristic;
+        if (estimate > this.threshold)
+            return estimate;
+        this.developedNodes++;
+        this.metrics.Expanded();
+        // the path is the only open list of the search
+        this.metrics.Frontier(depth + 1);
+        if (heuristic == 0 && this.board.equals(this.goalState.getState()))
+            return FOUND;
+        if (depth == this.path.length)
+            this.path = Arrays.copyOf(this.path, depth * 2);
+        int blank = this.board.getBlank();
+        int[] targets = this.table.Targets(blank);
+        char[] directions = this.table.Directions(blank);
+        char undo = MoveTable.Opposite(previous);
+        int minimum = Integer.MAX_VALUE;
+        for (int i = 0; i < targets.length; i++) {
+            char direction = directions[i];
+            // don't undo the last move
+            if (direction == undo)
+                continue;
+            int target = targets[i];
+            int tile = this.board.Get(target);
+            this.board.MoveBlank(target);
+            this.path[depth] = direction;
+            int childHeuristic = this.heuristic.Update(this.board, heuristic, tile, target, blank);
+            this.metrics.Generated(1);
+            this.metrics.Evaluated(1);
+            int result = LimitedSearch(depth + 1, childHeuristic, direction);
+            if (result == FOUND)
+                return FOUND;
+            // undo the move
+            this.board.MoveBlank(blank);
+            if (result < minimum)
+                minimum = result;
+        }
+        return minimum;
+    }
+}
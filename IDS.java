@@ -1,83 +1,418 @@
-import java.util.List;
-import java.util.Stack;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 /**
- * IDS algorithm uses a stack as it's open list, thus searching depth-first, but is also considering a depth limit
- * (that increases each iteration), so the search time would be optimal.
+ * IDS algorithm searches depth-first, but is also considering a depth limit (that increases each iteration), so
+ * the search time would be optimal.
+ * It makes the moves on a single board and undoes them on the way back, never undoes the last move, and skips the
+ * states that were already reached at the same depth or less in the iteration, with a small transposition table.
+ * It can also keep the last layer of the iteration - the paths of the states at the depth limit - in memory or on
+ * the disk, and the next iteration goes on from that layer instead of searching the shallow levels again.
+ * The layer is dropped if it grows over it's bound, and the iterations start from the initial state again.
  */
 public class IDS extends Algorithm {
 
+    /**
+     * FrontierMode is where the last layer of an iteration is kept.
+     */
+    public enum FrontierMode {
+        NONE, MEMORY, DISK
+    }
+
+    private static final int DEFAULT_TABLE = 1 << 20;
+    private static final int DEFAULT_FRONTIER = 1 << 22;
+
     private int depthLimit;
-    
+    private final FrontierMode frontierMode;
+    private final Path directory;
+    private final int tableSize;
+    private final int maxFrontier;
+    private State board;
+    private State goal;
+    private char[] path;
+    private MoveTable table;
+    private TranspositionTable visited;
+    private Layer next;
+    private boolean recording;
+
     /**
-     * Constructor.
+     * Constructor, of a square board with the standard goal, without keeping the layers.
      * @param size - board size
      * @param initState - the matrix in a string form
      */
     public IDS(int size, String initState) {
-        super(size, initState);
+        this(Shape.Square(size), PuzzleValidator.Parse(Shape.Square(size), initState), FrontierMode.NONE,
+                Path.of(System.getProperty("java.io.tmpdir")), DEFAULT_TABLE, DEFAULT_FRONTIER);
+    }
+
+    /**
+     * Constructor.
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     * @param frontierMode - where to keep the last layer of each iteration, if at all
+     * @param directory - the directory of the layer files, on the disk mode
+     * @param tableSize - the number of states the transposition table holds
+     * @param maxFrontier - the most paths a layer may have before it is dropped
+     */
+    public IDS(Shape shape, int[] tiles, FrontierMode frontierMode, Path directory, int tableSize,
+            int maxFrontier) {
+        super(shape, tiles);
         this.depthLimit = -1;
+        this.frontierMode = frontierMode;
+        this.directory = directory;
+        this.tableSize = tableSize;
+        this.maxFrontier = maxFrontier;
     }
 
     @Override
     public int Cost() {
-        // the cost here is simply the last depth that was reached. 
+        // the cost here is simply the last depth that was reached.
         return this.depthLimit;
     }
 
     @Override
     public Node Search(MovesLogic logic) {
-        Node result = null;
-        // while the result is not found, increase the depth limit and keep searching
-        while (result == null) {
+        this.metrics.Start();
+        this.board = this.initialState.getState().Copy();
+        this.goal = this.goalState.getState();
+        this.table = this.shape.getMoves();
+        this.path = new char[64];
+        this.visited = new TranspositionTable(this.tableSize);
+        this.recording = this.frontierMode != FrontierMode.NONE;
+        Layer last = null;
+        boolean found = false;
+        // while the result is not found, increase the depth limit and keep searching.
+        // the developed nodes are of the last iteration, as requested, the metrics count all of them.
+        while (!found) {
             this.depthLimit++;
             this.developedNodes = 0;
-            result = LimitedSearch(logic, this.depthLimit);
+            this.metrics.StartIteration(this.depthLimit);
+            if (this.depthLimit >= this.path.length)
+                this.path = Arrays.copyOf(this.path, this.path.length * 2);
+            this.next = this.recording ? OpenLayer() : null;
+            try {
+                found = last != null ? Resume(last) : Restart();
+            } catch (IOException e) {
+                // search this iteration again from the initial state, and don't keep the layers any more
+                e.printStackTrace();
+                Drop();
+                this.board = this.initialState.getState().Copy();
+                this.developedNodes = 0;
+                found = Restart();
+            }
+            CloseLayer(last);
+            last = this.next;
+            this.next = null;
+            this.metrics.EndIteration();
         }
-        this.goalState = result;
-        return result;
+        CloseLayer(last);
+        this.metrics.Finish();
+        // the path ends at the goal's depth, which is the last depth limit
+        return BuildTrack(logic, this.path, this.depthLimit);
     }
-    
+
+    /**
+     * Restart searches the iteration from the initial state.
+     * @return true if the goal was found, the path then holds it's moves
+     */
+    private boolean Restart() {
+        this.visited.Clear();
+        this.visited.Visit(this.board, 0);
+        return LimitedSearch(0, Node.NO_OPERATOR);
+    }
+
     /**
-     * Limited Search searches the graph depth-first, with a limit.
-     * @param logic - the tiles game moving logic
-     * @param limit - the current depth limit
-     * @return the result node, or null if nothing was found
+     * Resume searches the iteration from the paths of the last iteration's layer. The paths are in the order
+     * they were found in, so each one shares most of it's moves with the one before it, and the board only undoes
+     * and makes the moves where they differ.
+     * @param last - the last iteration's layer
+     * @return true if the goal was found, the path then holds it's moves
+     * @throws IOException if the layer can't be read
      */
-    public Node LimitedSearch(MovesLogic logic, int limit) {
-        // like DFS, we use a stack as our open list
-        Stack<Node> openList = new Stack<Node>();
-        openList.push(this.initialState);
-        while (!openList.isEmpty()) {
-            Node current = openList.pop();
-            if (current.getDepth() > limit)
+    private boolean Resume(Layer last) throws IOException {
+        int depth = this.depthLimit - 1;
+        char[] entry = new char[depth];
+        // the board is at the first moves of the path
+        int loaded = 0;
+        last.Finish();
+        while (last.Next(entry)) {
+            int common = 0;
+            while (common < loaded && this.path[common] == entry[common])
+                common++;
+            while (loaded > common)
+                Slide(MoveTable.Opposite(this.path[--loaded]));
+            for (; loaded < depth; loaded++) {
+                this.path[loaded] = entry[loaded];
+                Slide(entry[loaded]);
+            }
+            // the layer's states were already checked against the table when they were kept
+            if (LimitedSearch(depth, depth == 0 ? Node.NO_OPERATOR : this.path[depth - 1]))
+                return true;
+        }
+        while (loaded > 0)
+            Slide(MoveTable.Opposite(this.path[--loaded]));
+        return false;
+    }
+
+    /**
+     * LimitedSearch searches the board depth-first, with a limit.
+     * @param depth - the current depth
+     * @param previous - the direction of the last move
+     * @return true if the goal was reached, the path then holds it's moves
+     */
+    private boolean LimitedSearch(int depth, char previous) {
+        this.developedNodes++;
+        this.metrics.Expanded();
+        // the path is the open list of the search
+        this.metrics.Frontier(depth + 1);
+        if (this.board.getHash() == this.goal.getHash() && this.board.equals(this.goal))
+            return true;
+        if (depth == this.depthLimit) {
+            if (this.next != null)
+                Keep(depth);
+            return false;
+        }
+        int blank = this.board.getBlank();
+        int[] targets = this.table.Targets(blank);
+        char[] directions = this.table.Directions(blank);
+        char undo = MoveTable.Opposite(previous);
+        for (int i = 0; i < targets.length; i++) {
+            char direction = directions[i];
+            // don't undo the last move
+            if (direction == undo)
                 continue;
-            this.developedNodes++;
-            if (current.equals(this.goalState)) {
-                this.goalState = current;
-                return current;
+            this.board.MoveBlank(targets[i]);
+            this.path[depth] = direction;
+            this.metrics.Generated(1);
+            // the states at the limit are only kept in the table when they are kept in the layer
+            if ((depth + 1 < this.depthLimit || this.next != null)
+                    && this.visited.Visit(this.board, depth + 1)) {
+                this.metrics.Duplicate();
+            } else if (LimitedSearch(depth + 1, direction)) {
+                return true;
+            }
+            // undo the move
+            this.board.MoveBlank(blank);
+        }
+        return false;
+    }
+
+    /**
+     * Keep adds the path to the layer, and drops the layer if it is full or can't be written.
+     * @param depth - the length of the path
+     */
+    private void Keep(int depth) {
+        try {
+            if (this.next.Add(this.path, depth)) {
+                this.metrics.Closed(this.next.Size());
+                return;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        // the next layers would be bigger still
+        Drop();
+    }
+
+    /**
+     * Drop stops keeping the layers for the rest of the search.
+     */
+    private void Drop() {
+        CloseLayer(this.next);
+        this.next = null;
+        this.recording = false;
+    }
+
+    /**
+     * Slide makes a move on the board.
+     * @param direction - the move, U, D, L or R
+     */
+    private void Slide(char direction) {
+        int blank = this.board.getBlank();
+        char[] directions = this.table.Directions(blank);
+        for (int i = 0; i < directions.length; i++) {
+            if (directions[i] == direction) {
+                this.board.MoveBlank(this.table.Targets(blank)[i]);
+                return;
+            }
+        }
+        throw new IllegalStateException("the move " + direction + " is not possible from this state");
+    }
+
+    /**
+     * OpenLayer opens the layer of the current depth limit.
+     * @return the empty layer, or null if it's file can't be created
+     */
+    private Layer OpenLayer() {
+        try {
+            Path file = null;
+            if (this.frontierMode == FrontierMode.DISK) {
+                Files.createDirectories(this.directory);
+                file = Files.createTempFile(this.directory, "ids-layer-", ".bin");
             }
-            // since this is stack and not a queue, we must reverse the nodes order before pushing them
-            openList = ReverseAndPush(openList, logic.GetPossibleMoves(current));
+            return new Layer(this.depthLimit, this.maxFrontier, file);
+        } catch (IOException e) {
+            // the search goes on without the layers
+            e.printStackTrace();
+            this.recording = false;
+            return null;
         }
-        return null;
     }
-    
+
+    /**
+     * CloseLayer closes a layer and deletes it's file, if it has any.
+     * @param layer - the layer, or null
+     */
+    private static void CloseLayer(Layer layer) {
+        if (layer == null)
+            return;
+        try {
+            layer.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
-     * ReverseAndPush reverses the given list of nodes using an other stack
-     * @param openList - the list to push to
-     * @param movesToReverse - the nodes to revers and push
-     * @return the given open list, with the new nodes
+     * Layer holds the paths of the states at a single depth, each packed into longs of 2 bits per move.
+     * The paths are added, and after Finish() they are read back in the same order, from memory or from a file.
      */
-    private Stack<Node> ReverseAndPush(Stack<Node> openList, List<Node> movesToReverse) {
-        // use a mid-stack to reverse the nodes' order 
-        Stack<Node> midStack = new Stack<Node>();
-        midStack.addAll(movesToReverse);
-        // push them all to the open list
-        while (!midStack.empty()) {
-            Node move = midStack.pop();
-            openList.push(move);
+    private static final class Layer implements Closeable {
+
+        private static final int MOVES_PER_WORD = 32;
+
+        private final int length;
+        private final int words;
+        private final int capacity;
+        private final Path file;
+        private long[] memory;
+        private DataOutputStream writer;
+        private DataInputStream reader;
+        private int size;
+        private int read;
+
+        /**
+         * Constructor.
+         * @param length - the length of the paths
+         * @param capacity - the most paths the layer may hold
+         * @param file - the file to keep the paths in, or null to keep them in memory
+         * @throws IOException if the file can't be opened
+         */
+        Layer(int length, int capacity, Path file) throws IOException {
+            this.length = length;
+            this.words = Math.max(1, (length + MOVES_PER_WORD - 1) / MOVES_PER_WORD);
+            this.capacity = capacity;
+            this.file = file;
+            if (file == null)
+                this.memory = new long[this.words * 1024];
+            else
+                this.writer = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        }
+
+        /**
+         * Add adds a path to the layer.
+         * @param path - the moves
+         * @param count - the number of moves, the layer's length
+         * @return false if the layer is full, and the path was not added
+         * @throws IOException if the file can't be written
+         */
+        boolean Add(char[] path, int count) throws IOException {
+            if (this.size == this.capacity)
+                return false;
+            if (this.memory != null && (this.size + 1) * this.words > this.memory.length)
+                this.memory = Arrays.copyOf(this.memory, this.memory.length * 2);
+            for (int w = 0; w < this.words; w++) {
+                long word = 0L;
+                int end = Math.min(count, (w + 1) * MOVES_PER_WORD);
+                for (int i = w * MOVES_PER_WORD; i < end; i++)
+                    word |= (long) Code(path[i]) << ((i % MOVES_PER_WORD) * 2);
+                if (this.memory != null)
+                    this.memory[this.size * this.words + w] = word;
+                else
+                    this.writer.writeLong(word);
+            }
+            this.size++;
+            return true;
+        }
+
+        /**
+         * Finish ends the adding, so the paths can be read.
+         * @throws IOException if the file can't be written or opened
+         */
+        void Finish() throws IOException {
+            this.read = 0;
+            if (this.file == null)
+                return;
+            this.writer.close();
+            this.writer = null;
+            this.reader = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.file), 1 << 16));
+        }
+
+        /**
+         * Next reads the next path.
+         * @param path - the buffer for the moves, at least the layer's length
+         * @return false if there are no more paths
+         * @throws IOException if the file can't be read
+         */
+        boolean Next(char[] path) throws IOException {
+            if (this.read == this.size)
+                return false;
+            for (int w = 0; w < this.words; w++) {
+                long word;
+                if (this.memory != null) {
+                    word = this.memory[this.read * this.words + w];
+                } else {
+                    try {
+                        word = this.reader.readLong();
+                    } catch (EOFException e) {
+                        throw new IOException("the layer file " + this.file + " is shorter than it's paths", e);
+                    }
+                }
+                int end = Math.min(this.length, (w + 1) * MOVES_PER_WORD);
+                for (int i = w * MOVES_PER_WORD; i < end; i++)
+                    path[i] = "UDLR".charAt((int) (word >>> ((i % MOVES_PER_WORD) * 2)) & 3);
+            }
+            this.read++;
+            return true;
+        }
+
+        /**
+         * Size
+         * @return the number of paths in the layer
+         */
+        int Size() {
+            return this.size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.memory = null;
+            if (this.writer != null)
+                this.writer.close();
+            if (this.reader != null)
+                this.reader.close();
+            if (this.file != null)
+                Files.deleteIfExists(this.file);
+        }
+
+        /**
+         * Code
+         * @param direction - a move, U, D, L or R
+         * @return it's 2 bits
+         */
+        private static int Code(char direction) {
+            if (direction == 'U') return 0;
+            if (direction == 'D') return 1;
+            if (direction == 'L') return 2;
+            return 3;
         }
-        return openList;
     }
 }
@@ -0,0 +1,144 @@
+import java.util.Arrays;
+
+/**
+ * IntBucketQueue is the open list of A* for the nodes of a NodeArena, like BucketQueue but of node indices.
+ * The estimate and the heuristic value of each node are given when it is added, since the arena doesn't keep them.
+ * The nodes of the same estimate are ordered by the tie breaking policy, like in BucketQueue.
+ */
+public class IntBucketQueue {
+
+    private final TieBreaking policy;
+    private IntQueue[] buckets;
+    // the buckets of the heuristic values within every estimate, for the policies that order by them
+    private IntBucketQueue[] inner;
+    private int minimum;
+    private int size;
+
+    /**
+     * Constructor, first in, first out within the buckets.
+     */
+    public IntBucketQueue() {
+        this(TieBreaking.FIFO);
+    }
+
+    /**
+     * Constructor.
+     * @param policy - the order of the nodes of the same estimate
+     */
+    public IntBucketQueue(TieBreaking policy) {
+        this.policy = policy;
+        if (policy.ByHeuristic())
+            this.inner = new IntBucketQueue[64];
+        else
+            this.buckets = new IntQueue[64];
+        this.minimum = Integer.MAX_VALUE;
+        this.size = 0;
+    }
+
+    /**
+     * Add adds a node to it's estimate's bucket.
+     * @param node - the node's index
+     * @param estimate - the node's estimate, f(n)
+     * @param heuristic - the node's heuristic value, h(n)
+     */
+    public void Add(int node, int estimate, int heuristic) {
+        if (this.inner != null) {
+            if (estimate >= this.inner.length)
+                this.inner = Arrays.copyOf(this.inner, Math.max(this.inner.length * 2, estimate + 1));
+            if (this.inner[estimate] == null)
+                this.inner[estimate] = new IntBucketQueue(this.policy.IsLifo() ? TieBreaking.LIFO : TieBreaking.FIFO);
+            // the inner queue's estimates are the heuristic values
+            this.inner[estimate].Add(node, heuristic, heuristic);
+        } else {
+            if (estimate >= this.buckets.length)
+                this.buckets = Arrays.copyOf(this.buckets, Math.max(this.buckets.length * 2, estimate + 1));
+            if (this.buckets[estimate] == null)
+                this.buckets[estimate] = new IntQueue();
+            this.buckets[estimate].Add(node);
+        }
+        if (estimate < this.minimum)
+            this.minimum = estimate;
+        this.size++;
+    }
+
+    /**
+     * Remove removes the next node of the lowest bucket.
+     * @return the node's index
+     */
+    public int Remove() {
+        MinimumEstimate();
+        this.size--;
+        if (this.inner != null)
+            return this.inner[this.minimum].Remove();
+        if (this.policy.IsLifo())
+            return this.buckets[this.minimum].RemoveLast();
+        return this.buckets[this.minimum].Remove();
+    }
+
+    /**
+     * MinimumEstimate
+     * @return the lowest estimate in the open list, Integer.MAX_VALUE if it is empty
+     */
+    public int MinimumEstimate() {
+        if (this.size == 0)
+            return Integer.MAX_VALUE;
+        // the lowest bucket may have been emptied by the previous removals
+        while (IsEmpty(this.minimum))
+            this.minimum++;
+        return this.minimum;
+    }
+
+    /**
+     * IsEmpty
+     * @param estimate - a bucket's estimate
+     * @return true if there are no nodes in that bucket
+     */
+    private boolean IsEmpty(int estimate) {
+        if (this.inner != null)
+            return this.inner[estimate] == null || this.inner[estimate].IsEmpty();
+        return this.buckets[estimate] == null || this.buckets[estimate].IsEmpty();
+    }
+
+    /**
+     * IsEmpty
+     * @return true if there are no nodes in the open list
+     */
+    public boolean IsEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Size
+     * @return the number of nodes in the open list
+     */
+    public int Size() {
+        return this.size;
+    }
+
+    /**
+     * getPolicy
+     * @return the order of the nodes of the same estimate
+     */
+    public TieBreaking getPolicy() {
+        return this.policy;
+    }
+
+    /**
+     * Clear removes all the nodes, and keeps the buckets for the next search.
+     */
+    public void Clear() {
+        if (this.inner != null) {
+            for (IntBucketQueue bucket : this.inner) {
+                if (bucket != null)
+                    bucket.Clear();
+            }
+        } else {
+            for (IntQueue bucket : this.buckets) {
+                if (bucket != null)
+                    bucket.Clear();
+            }
+        }
+        this.minimum = Integer.MAX_VALUE;
+        this.size = 0;
+    }
+}
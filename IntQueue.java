@@ -0,0 +1,87 @@
+/**
+ * IntQueue is a first in, first out queue of ints, kept in a circular array that doubles when it is full.
+ * It is the open list of the searches that keep their nodes in a NodeArena. It can also be used as a stack,
+ * by removing the values from it's end.
+ */
+public class IntQueue {
+
+    private int[] values;
+    private int head;
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    public IntQueue() {
+        this.values = new int[16];
+        this.head = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Add adds a value at the queue's end.
+     * @param value - the value
+     */
+    public void Add(int value) {
+        if (this.size == this.values.length)
+            Grow();
+        this.values[(this.head + this.size) & (this.values.length - 1)] = value;
+        this.size++;
+    }
+
+    /**
+     * Remove removes the value at the queue's head.
+     * @return that value
+     */
+    public int Remove() {
+        int value = this.values[this.head];
+        this.head = (this.head + 1) & (this.values.length - 1);
+        this.size--;
+        return value;
+    }
+
+    /**
+     * RemoveLast removes the value at the queue's end.
+     * @return that value
+     */
+    public int RemoveLast() {
+        this.size--;
+        return this.values[(this.head + this.size) & (this.values.length - 1)];
+    }
+
+    /**
+     * IsEmpty
+     * @return true if there are no values in the queue
+     */
+    public boolean IsEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Size
+     * @return the number of values in the queue
+     */
+    public int Size() {
+        return this.size;
+    }
+
+    /**
+     * Clear removes all the values, and keeps the array.
+     */
+    public void Clear() {
+        this.head = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Grow doubles the array, moving the values to it's start in their order.
+     */
+    private void Grow() {
+        int[] old = this.values;
+        this.values = new int[old.length * 2];
+        int first = old.length - this.head;
+        System.arraycopy(old, this.head, this.values, 0, first);
+        System.arraycopy(old, 0, this.values, first, this.head);
+        this.head = 0;
+    }
+}
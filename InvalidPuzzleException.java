@@ -0,0 +1,35 @@
+/**
+ * InvalidPuzzleException is thrown for a puzzle that can't be solved - a malformed board or an unsolvable
+ * permutation - before any search starts. It's reason tells the callers what is wrong without parsing the message.
+ */
+public class InvalidPuzzleException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Reason is the kind of problem with the puzzle.
+     */
+    public enum Reason {
+        BAD_SIZE, BAD_TILE_COUNT, BAD_TILE, DUPLICATE_TILE, UNSOLVABLE
+    }
+
+    private final Reason reason;
+
+    /**
+     * Constructor.
+     * @param reason - the kind of problem
+     * @param detail - what exactly is wrong
+     */
+    public InvalidPuzzleException(Reason reason, String detail) {
+        super(reason.name().toLowerCase() + ": " + detail);
+        this.reason = reason;
+    }
+
+    /**
+     * getReason
+     * @return the kind of problem with the puzzle
+     */
+    public Reason getReason() {
+        return this.reason;
+    }
+}
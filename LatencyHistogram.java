@@ -0,0 +1,93 @@
+/**
+ * LatencyHistogram counts the latencies of the solver's requests, to report their percentiles. The latencies are
+ * counted in buckets of 16 steps per power of 2, so it's size is fixed however many requests it counts, and a
+ * percentile is at most 1/16 (about 6%) above the real latency.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BITS = 4;
+
+    private final long[] counts;
+    private long count;
+    private long max;
+
+    /**
+     * Constructor.
+     */
+    public LatencyHistogram() {
+        this.counts = new long[64 * SUB_BUCKETS];
+    }
+
+    /**
+     * Record counts a latency.
+     * @param nanos - the latency, in nanoseconds
+     */
+    public synchronized void Record(long nanos) {
+        long value = Math.max(0L, nanos);
+        this.counts[Bucket(value)]++;
+        this.count++;
+        if (value > this.max)
+            this.max = value;
+    }
+
+    /**
+     * Percentile
+     * @param percent - the percentile, between 0 and 100
+     * @return the latency that the given percent of the requests were at or under, in nanoseconds
+     */
+    public synchronized long Percentile(double percent) {
+        if (this.count == 0)
+            return 0L;
+        long rank = Math.max(1L, (long) Math.ceil(percent / 100 * this.count));
+        long seen = 0;
+        for (int bucket = 0; bucket < this.counts.length; bucket++) {
+            seen += this.counts[bucket];
+            if (seen >= rank)
+                return Math.min(Highest(bucket), this.max);
+        }
+        return this.max;
+    }
+
+    /**
+     * getCount
+     * @return the number of latencies that were counted
+     */
+    public synchronized long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("requests %d, p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms",
+                this.count, Percentile(50) / 1e6, Percentile(90) / 1e6, Percentile(99) / 1e6,
+                Percentile(99.9) / 1e6, this.max / 1e6);
+    }
+
+    /**
+     * Bucket
+     * @param value - a latency
+     * @return it's bucket - the power of 2 under it, and the next 4 bits
+     */
+    private static int Bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Highest
+     * @param bucket - a bucket
+     * @return the highest latency of the bucket
+     */
+    private static long Highest(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long step = 1L << (exponent - SUB_BITS);
+        return ((SUB_BUCKETS + sub) << (exponent - SUB_BITS)) + step - 1;
+    }
+}
@@ -0,0 +1,250 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * LinearConflict adds to the Manhattan's distance two moves for every tile that has to leave it's goal row
+ * (or column) to let other tiles of that line pass it. The tiles that stay in a line are the longest
+ * sequence of them that is already in the goal order, so the estimate is still admissible.
+ * The conflicts of a line only depend on the goal positions of the tiles that belong to it, in their order, so
+ * they are looked up in a table of every such line, calculated once per line length. A move changes a single
+ * row and two columns, or a single column and two rows, so only these lines are looked up again.
+ */
+public class LinearConflict extends Manhattan {
+
+    /**
+     * the longest line that has a conflicts table, the table of a line of length L has (L + 1)^L entries.
+     * the conflicts of longer lines are calculated from the state.
+     */
+    public static final int MAX_TABLE_LINE = 7;
+
+    private static final Map<Integer, byte[]> tables = new HashMap<Integer, byte[]>();
+
+    // the lines of the last board this heuristic was used for, the heuristic is shared by the searches of a board
+    private volatile Lines lines;
+
+    @Override
+    public int Evaluate(State state) {
+        Lines board = LinesOf(state.getShape());
+        int conflicts = 0;
+        for (int line = 0; line < board.rows; line++)
+            conflicts += board.Conflicts(state, line, true);
+        for (int line = 0; line < board.columns; line++)
+            conflicts += board.Conflicts(state, line, false);
+        return super.Evaluate(state) + 2 * conflicts;
+    }
+
+    @Override
+    public int Update(State state, int distance, int tile, int from, int to) {
+        Lines board = LinesOf(state.getShape());
+        if (board.rowTable == null || board.columnTable == null)
+            return Evaluate(state);
+        int columns = board.columns;
+        // the conflicts of the lines the tile left and entered, before and after the move
+        int change = board.Change(state, to / columns, true, tile, from, to);
+        if (from / columns != to / columns)
+            change += board.Change(state, from / columns, true, tile, from, to);
+        change += board.Change(state, to % columns, false, tile, from, to);
+        if (from % columns != to % columns)
+            change += board.Change(state, from % columns, false, tile, from, to);
+        return super.Update(state, distance, tile, from, to) + 2 * change;
+    }
+
+    /**
+     * LinesOf
+     * @param shape - the board
+     * @return the lines of the board
+     */
+    private Lines LinesOf(Shape shape) {
+        Lines board = this.lines;
+        if (board == null || board.shape != shape) {
+            board = new Lines(shape);
+            this.lines = board;
+        }
+        return board;
+    }
+
+    /**
+     * Table returns the conflicts of every line of a length. A line is keyed by the goal position plus 1 of each
+     * of it's tiles that belongs to it, and 0 for the others, as digits of base length + 1, the first cell lowest.
+     * @param length - the line's length
+     * @return the number of tiles that have to leave the line, by the line's key, or null if the line is too long
+     */
+    static synchronized byte[] Table(int length) {
+        if (length > MAX_TABLE_LINE)
+            return null;
+        byte[] table = tables.get(length);
+        if (table == null) {
+            int base = length + 1;
+            int entries = 1;
+            for (int k = 0; k < length; k++)
+                entries *= base;
+            table = new byte[entries];
+            int[] goals = new int[length];
+            for (int key = 0; key < entries; key++) {
+                int count = 0;
+                for (int k = 0, rest = key; k < length; k++, rest /= base) {
+                    if (rest % base != 0)
+                        goals[count++] = rest % base - 1;
+                }
+                table[key] = (byte) (count - LongestIncreasing(goals, count));
+            }
+            tables.put(length, table);
+        }
+        return table;
+    }
+
+    /**
+     * LongestIncreasing
+     * @param goals - the goal positions, along a line, of the tiles that belong to it
+     * @param count - the number of these tiles
+     * @return the length of the longest increasing sequence of the goal positions, the tiles that may stay
+     */
+    private static int LongestIncreasing(int[] goals, int count) {
+        int[] longest = new int[count];
+        int best = 0;
+        for (int i = 0; i < count; i++) {
+            longest[i] = 1;
+            for (int j = 0; j < i; j++) {
+                if (goals[j] < goals[i] && longest[j] + 1 > longest[i])
+                    longest[i] = longest[j] + 1;
+            }
+            if (longest[i] > best)
+                best = longest[i];
+        }
+        return best;
+    }
+
+    /**
+     * Lines holds what the conflicts of a board's lines are looked up by - the conflict tables of it's rows and
+     * columns, and the digit of every tile in the keys of it's goal row and column.
+     */
+    private static final class Lines {
+
+        private final Shape shape;
+        private final int rows;
+        private final int columns;
+        private final byte[] rowTable;
+        private final byte[] columnTable;
+        private final int[] goalRow;
+        private final int[] goalColumn;
+        // the place value of every position along a row, and along a column
+        private final int[] rowWeights;
+        private final int[] columnWeights;
+
+        /**
+         * Constructor.
+         * @param shape - the board
+         */
+        private Lines(Shape shape) {
+            this.shape = shape;
+            this.rows = shape.getRows();
+            this.columns = shape.getColumns();
+            this.rowTable = Table(this.columns);
+            this.columnTable = Table(this.rows);
+            this.goalRow = new int[shape.getCells()];
+            this.goalColumn = new int[shape.getCells()];
+            for (int tile = 1; tile < shape.getCells(); tile++) {
+                this.goalRow[tile] = shape.GoalCell(tile) / this.columns;
+                this.goalColumn[tile] = shape.GoalCell(tile) % this.columns;
+            }
+            this.rowWeights = Weights(this.columns);
+            this.columnWeights = Weights(this.rows);
+        }
+
+        /**
+         * Weights
+         * @param length - a line's length
+         * @return the place value of every position along the line, in base length + 1
+         */
+        private static int[] Weights(int length) {
+            int[] weights = new int[length];
+            int weight = 1;
+            for (int k = 0; k < length && length <= MAX_TABLE_LINE; k++) {
+                weights[k] = weight;
+                weight *= length + 1;
+            }
+            return weights;
+        }
+
+        /**
+         * Digit
+         * @param tile - a tile
+         * @param line - the row's or column's number
+         * @param row - true for a row, false for a column
+         * @return the tile's digit in the line's key, it's goal position plus 1 if it belongs to the line, else 0
+         */
+        private int Digit(int tile, int line, boolean row) {
+            if (tile == 0)
+                return 0;
+            if (row)
+                return this.goalRow[tile] == line ? this.goalColumn[tile] + 1 : 0;
+            return this.goalColumn[tile] == line ? this.goalRow[tile] + 1 : 0;
+        }
+
+        /**
+         * Key
+         * @param state - the state
+         * @param line - the row's or column's number
+         * @param row - true for a row, false for a column
+         * @return the line's key in it's conflicts table
+         */
+        private int Key(State state, int line, boolean row) {
+            int key = 0;
+            if (row) {
+                for (int k = 0; k < this.columns; k++)
+                    key += Digit(state.Get(line * this.columns + k), line, true) * this.rowWeights[k];
+            } else {
+                for (int k = 0; k < this.rows; k++)
+                    key += Digit(state.Get(k * this.columns + line), line, false) * this.columnWeights[k];
+            }
+            return key;
+        }
+
+        /**
+         * Conflicts counts the tiles that have to leave a row or a column.
+         * @param state - the state
+         * @param line - the row's or column's number
+         * @param row - true for a row, false for a column
+         * @return the number of tiles that have to leave the line
+         */
+        private int Conflicts(State state, int line, boolean row) {
+            byte[] table = row ? this.rowTable : this.columnTable;
+            if (table != null)
+                return table[Key(state, line, row)];
+            // the line is too long for a table
+            int length = row ? this.columns : this.rows;
+            int[] goals = new int[length];
+            int count = 0;
+            for (int k = 0; k < length; k++) {
+                int digit = Digit(state.Get(row ? line * this.columns + k : k * this.columns + line), line, row);
+                if (digit != 0)
+                    goals[count++] = digit - 1;
+            }
+            return count - LongestIncreasing(goals, count);
+        }
+
+        /**
+         * Change calculates how a move changed the conflicts of a line. The line's key before the move is it's key
+         * after the move, with the moved tile back in it's cell and the 0 in the tile's new cell.
+         * @param state - the state, after the move
+         * @param line - the row's or column's number, the row or column of one of the move's cells
+         * @param row - true for a row, false for a column
+         * @param tile - the tile that was moved
+         * @param from - the cell the tile was moved from
+         * @param to - the cell the tile was moved to
+         * @return the line's conflicts after the move minus it's conflicts before it
+         */
+        private int Change(State state, int line, boolean row, int tile, int from, int to) {
+            byte[] table = row ? this.rowTable : this.columnTable;
+            int[] weights = row ? this.rowWeights : this.columnWeights;
+            int key = Key(state, line, row);
+            int digit = Digit(tile, line, row);
+            int before = key;
+            if ((row ? to / this.columns : to % this.columns) == line)
+                before -= digit * weights[row ? to % this.columns : to / this.columns];
+            if ((row ? from / this.columns : from % this.columns) == line)
+                before += digit * weights[row ? from % this.columns : from / this.columns];
+            return table[key] - table[before];
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.Arrays;
+
+/**
+ * LongHashSet is a set of primitive longs, used as the closed list of the searches.
+ * It uses open addressing with linear probing over a plain long array, so adding a state allocates nothing
+ * (besides the occasional growth of the table). The 0 key marks an empty slot, so it is kept aside in a flag.
+ */
+public class LongHashSet {
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+
+    /**
+     * Constructor.
+     */
+    public LongHashSet() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+        this.size = 0;
+        this.hasZero = false;
+    }
+
+    /**
+     * Add adds a key to the set.
+     * @param key - the key
+     * @return true if the key was added, false if it was already in the set
+     */
+    public boolean Add(long key) {
+        if (key == 0L) {
+            if (this.hasZero)
+                return false;
+            this.hasZero = true;
+            this.size++;
+            return true;
+        }
+        int slot = Slot(key);
+        while (this.keys[slot] != 0L) {
+            if (this.keys[slot] == key)
+                return false;
+            slot = (slot + 1) & this.mask;
+        }
+        this.keys[slot] = key;
+        this.size++;
+        // keep the table at most half full, so the probing stays short
+        if (this.size * 2 > this.keys.length)
+            Grow();
+        return true;
+    }
+
+    /**
+     * Contains
+     * @param key - the key
+     * @return true if the key is in the set
+     */
+    public boolean Contains(long key) {
+        if (key == 0L)
+            return this.hasZero;
+        int slot = Slot(key);
+        while (this.keys[slot] != 0L) {
+            if (this.keys[slot] == key)
+                return true;
+            slot = (slot + 1) & this.mask;
+        }
+        return false;
+    }
+
+    /**
+     * Size
+     * @return the number of keys in the set
+     */
+    public int Size() {
+        return this.size;
+    }
+
+    /**
+     * Clear removes all the keys, and keeps the table for the next search.
+     */
+    public void Clear() {
+        if (this.size > 0)
+            Arrays.fill(this.keys, 0L);
+        this.size = 0;
+        this.hasZero = false;
+    }
+
+    /**
+     * Capacity
+     * @return the number of slots in the table
+     */
+    public int Capacity() {
+        return this.keys.length;
+    }
+
+    /**
+     * Slot mixes the key's bits, since the packed states differ mostly in their low bits.
+     * @param key - the key
+     * @return the first slot to look for the key in
+     */
+    private int Slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.mask;
+    }
+
+    /**
+     * Grow doubles the table and re-inserts all the keys.
+     */
+    private void Grow() {
+        long[] old = this.keys;
+        this.keys = new long[old.length * 2];
+        this.mask = this.keys.length - 1;
+        for (long key : old) {
+            if (key == 0L)
+                continue;
+            int slot = Slot(key);
+            while (this.keys[slot] != 0L)
+                slot = (slot + 1) & this.mask;
+            this.keys[slot] = key;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * LongIntHashMap maps primitive long keys to int values, with the same open addressing as LongHashSet.
+ * The searches use it to remember the cheapest depth each state was reached at.
+ */
+public class LongIntHashMap {
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+    private int zeroValue;
+
+    /**
+     * Constructor.
+     */
+    public LongIntHashMap() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.values = new int[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+        this.size = 0;
+        this.hasZero = false;
+    }
+
+    /**
+     * Get
+     * @param key - the key
+     * @param missing - the value to return if the key is not in the map
+     * @return the key's value
+     */
+    public int Get(long key, int missing) {
+        if (key == 0L)
+            return this.hasZero ? this.zeroValue : missing;
+        int slot = Slot(key);
+        while (this.keys[slot] != 0L) {
+            if (this.keys[slot] == key)
+                return this.values[slot];
+            slot = (slot + 1) & this.mask;
+        }
+        return missing;
+    }
+
+    /**
+     * Put sets the value of a key, adding the key if it is not in the map.
+     * @param key - the key
+     * @param value - the value
+     */
+    public void Put(long key, int value) {
+        if (key == 0L) {
+            if (!this.hasZero)
+                this.size++;
+            this.hasZero = true;
+            this.zeroValue = value;
+            return;
+        }
+        int slot = Slot(key);
+        while (this.keys[slot] != 0L) {
+            if (this.keys[slot] == key) {
+                this.values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        this.size++;
+        // keep the table at most half full, so the probing stays short
+        if (this.size * 2 > this.keys.length)
+            Grow();
+    }
+
+    /**
+     * Size
+     * @return the number of keys in the map
+     */
+    public int Size() {
+        return this.size;
+    }
+
+    /**
+     * Slot mixes the key's bits, since the packed states differ mostly in their low bits.
+     * @param key - the key
+     * @return the first slot to look for the key in
+     */
+    private int Slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.mask;
+    }
+
+    /**
+     * Grow doubles the table and re-inserts all the keys.
+     */
+    private void Grow() {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.keys = new long[oldKeys.length * 2];
+        this.values = new int[oldKeys.length * 2];
+        this.mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0L)
+                continue;
+            int slot = Slot(oldKeys[i]);
+            while (this.keys[slot] != 0L)
+                slot = (slot + 1) & this.mask;
+            this.keys[slot] = oldKeys[i];
+            this.values[slot] = oldValues[i];
+        }
+    }
+}
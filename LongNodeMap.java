@@ -0,0 +1,108 @@
+/**
+ * LongNodeMap maps primitive long keys to nodes, with the same open addressing as LongHashSet.
+ * The searches use it to find the node a state was reached by.
+ */
+public class LongNodeMap {
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private long[] keys;
+    private Node[] values;
+    private int mask;
+    private int size;
+    private Node zeroValue;
+
+    /**
+     * Constructor.
+     */
+    public LongNodeMap() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.values = new Node[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+        this.size = 0;
+        this.zeroValue = null;
+    }
+
+    /**
+     * Get
+     * @param key - the key
+     * @return the key's node, or null if the key is not in the map
+     */
+    public Node Get(long key) {
+        if (key == 0L)
+            return this.zeroValue;
+        int slot = Slot(key);
+        while (this.keys[slot] != 0L) {
+            if (this.keys[slot] == key)
+                return this.values[slot];
+            slot = (slot + 1) & this.mask;
+        }
+        return null;
+    }
+
+    /**
+     * Put sets the node of a key, adding the key if it is not in the map.
+     * @param key - the key
+     * @param value - the node, not null
+     */
+    public void Put(long key, Node value) {
+        if (key == 0L) {
+            if (this.zeroValue == null)
+                this.size++;
+            this.zeroValue = value;
+            return;
+        }
+        int slot = Slot(key);
+        while (this.keys[slot] != 0L) {
+            if (this.keys[slot] == key) {
+                this.values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        this.size++;
+        // keep the table at most half full, so the probing stays short
+        if (this.size * 2 > this.keys.length)
+            Grow();
+    }
+
+    /**
+     * Size
+     * @return the number of keys in the map
+     */
+    public int Size() {
+        return this.size;
+    }
+
+    /**
+     * Slot mixes the key's bits, since the packed states differ mostly in their low bits.
+     * @param key - the key
+     * @return the first slot to look for the key in
+     */
+    private int Slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.mask;
+    }
+
+    /**
+     * Grow doubles the table and re-inserts all the keys.
+     */
+    private void Grow() {
+        long[] oldKeys = this.keys;
+        Node[] oldValues = this.values;
+        this.keys = new long[oldKeys.length * 2];
+        this.values = new Node[oldKeys.length * 2];
+        this.mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0L)
+                continue;
+            int slot = Slot(oldKeys[i]);
+            while (this.keys[slot] != 0L)
+                slot = (slot + 1) & this.mask;
+            this.keys[slot] = oldKeys[i];
+            this.values[slot] = oldValues[i];
+        }
+    }
+}
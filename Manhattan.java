@@ -0,0 +1,29 @@
+/**
+ * Manhattan calculates the Manhattan's distance of a state from the goal state - the sum of the distances
+ * of every tile (but the 0) from it's place in the goal state.
+ * Since a move slides a single tile by one cell, the distance of a successor can be updated from it's parent's.
+ */
+public class Manhattan implements Heuristic {
+
+    @Override
+    public int Evaluate(State state) {
+        int distanceFromGoal = 0;
+        Shape shape = state.getShape();
+        for (int index = 0; index < shape.getCells(); index++) {
+            // for each value on the board that's not 0
+            int val = state.Get(index);
+            if (val == 0)
+                continue;
+            distanceFromGoal += shape.Distance(val, index);
+        }
+        return distanceFromGoal;
+    }
+
+    @Override
+    public int Update(State state, int distance, int tile, int from, int to) {
+        // the distance only changes by the moved tile, so it's the parent's distance plus or minus 1
+        // the distances of every tile from every cell are calculated once per board, by the shape
+        Shape shape = state.getShape();
+        return distance - shape.Distance(tile, from) + shape.Distance(tile, to);
+    }
+}
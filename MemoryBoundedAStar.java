@@ -0,0 +1,347 @@
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * MemoryBoundedAStar is a simplified memory-bounded A* (SMA*). It develops the nodes in the order of A*, but keeps
+ * at most a budget of nodes in memory instead of growing until the heap runs out. When the budget is full it
+ * forgets the worst leaf - the highest estimate, and the shallowest of these - and it's parent remembers the
+ * leaf's estimate, so the forgotten subtree is generated again only when it is the best one left.
+ * A node's estimate is backed up from it's children: it is the smallest estimate of it's children and of the ones
+ * it forgot, so it only grows as the search learns more, and a node is never estimated below it's parent.
+ * A state is not generated again while a copy of it that is as cheap is in memory, which also skips the cycles.
+ * The solution is optimal when it's path fits in the budget, otherwise the search ends without a solution. A node
+ * whose estimate is already too long to fit is never developed, so such a search ends once all the estimates that
+ * fit are developed.
+ */
+public class MemoryBoundedAStar extends AStar {
+
+    private static final int INFINITE = Integer.MAX_VALUE;
+    // a successor that is in memory, or is not generated at all
+    private static final int NONE = -1;
+
+    // the best estimate first, and the deepest of these, so the last node is the one to forget
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        if (a.key != b.key)
+            return Integer.compare(a.key, b.key);
+        if (a.depth != b.depth)
+            return Integer.compare(b.depth, a.depth);
+        return Long.compare(a.id, b.id);
+    };
+
+    private final int budget;
+    private TreeSet<Entry> openList;
+    // the nodes of the open list that have no children in memory, the ones that may be forgotten
+    private TreeSet<Entry> leaves;
+    private Map<State, Entry> stored;
+    private Heuristic heuristic;
+    private MoveTable table;
+    private long created;
+    private long forgotten;
+
+    /**
+     * Constructor.
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     * @param budget - the most nodes to keep in memory, at least 2
+     */
+    public MemoryBoundedAStar(Shape shape, int[] tiles, int budget) {
+        super(shape, tiles, TieBreaking.FIFO);
+        if (budget < 2)
+            throw new IllegalArgumentException("the node budget must be at least 2, it is " + budget);
+        this.budget = budget;
+    }
+
+    /**
+     * getForgotten
+     * @return the number of leaves that were forgotten to stay in the budget
+     */
+    public long getForgotten() {
+        return this.forgotten;
+    }
+
+    @Override
+    public Node Search(MovesLogic logic) {
+        this.metrics.Start();
+        this.heuristic = logic.getHeuristic();
+        this.table = this.shape.getMoves();
+        this.initialState.setHeuristic(this.heuristic.Evaluate(this.initialState.getState()));
+        this.metrics.Evaluated(1);
+        this.openList = new TreeSet<Entry>(ORDER);
+        this.leaves = new TreeSet<Entry>(ORDER);
+        this.stored = new HashMap<State, Entry>();
+        this.created = 0;
+        this.forgotten = 0;
+        Entry root = new Entry(this.initialState.getState().Copy(), null, Node.NO_OPERATOR, NONE, 0,
+                this.initialState.getHeuristic(), this.created++);
+        root.estimate = Fit(root.estimate);
+        root.key = root.estimate;
+        Open(root);
+        this.stored.put(root.state, root);
+        State goal = this.goalState.getState();
+        while (!this.openList.isEmpty()) {
+            Entry best = this.openList.first();
+            // the successors that are left didn't fit in the budget
+            if (best.key == INFINITE)
+                break;
+            if (best.children == null && best.heuristic == 0 && best.state.equals(goal)) {
+                // the goal is developed like in A star
+                this.developedNodes++;
+                this.metrics.Expanded();
+                this.metrics.Finish();
+                return BuildTrack(logic, best);
+            }
+            Close(best);
+            Develop(best);
+            this.metrics.Frontier(this.openList.size());
+            this.metrics.Closed(this.stored.size());
+        }
+        this.metrics.Finish();
+        return null;
+    }
+
+    @Override
+    public String NoSolution() {
+        return "no solution fits in the node budget of " + this.budget;
+    }
+
+    /**
+     * Develop generates the successors of a node that are not in memory, forgetting the worst leaves to make room
+     * for them, and backs up the node's estimate.
+     * @param best - the node of the best estimate
+     */
+    private void Develop(Entry best) {
+        this.developedNodes++;
+        this.metrics.Expanded();
+        int blank = best.state.getBlank();
+        int[] targets = this.table.Targets(blank);
+        char[] directions = this.table.Directions(blank);
+        // a node that was developed before only generates it's best forgotten successor again. generating all of
+        // them could forget each one for the next, when the budget is full
+        int only = -1;
+        if (best.children == null) {
+            best.children = new Entry[targets.length];
+            best.bounds = new int[targets.length];
+            char undo = MoveTable.Opposite(best.operator);
+            // the move back to the parent is never generated
+            for (int i = 0; i < targets.length; i++)
+                best.bounds[i] = directions[i] == undo ? NONE : best.estimate;
+        } else {
+            for (int i = 0; i < targets.length; i++) {
+                if (best.bounds[i] != NONE && (only < 0 || best.bounds[i] < best.bounds[only]))
+                    only = i;
+            }
+        }
+        int depth = best.depth + 1;
+        for (int i = 0; i < targets.length; i++) {
+            if (best.bounds[i] == NONE || best.bounds[i] == INFINITE || (only >= 0 && i != only))
+                continue;
+            State child = best.state.Copy();
+            int tile = child.Get(targets[i]);
+            child.MoveBlank(targets[i]);
+            Entry copy = this.stored.get(child);
+            if (copy != null && copy.depth <= depth) {
+                // the copy's subtree has everything this successor's has, at least as cheap
+                best.bounds[i] = NONE;
+                this.metrics.Duplicate();
+                continue;
+            }
+            if (this.stored.size() >= this.budget && !Forget(best)) {
+                best.bounds[i] = INFINITE;
+                continue;
+            }
+            int childHeuristic = this.heuristic.Update(child, best.heuristic, tile, targets[i], blank);
+            this.metrics.Generated(1);
+            this.metrics.Evaluated(1);
+            Entry entry = new Entry(child, best, directions[i], i, depth, childHeuristic, this.created++);
+            // a successor is never estimated below it's parent, or below it's estimate before it was forgotten
+            entry.estimate = Fit(Math.max(entry.estimate, best.bounds[i]));
+            entry.key = entry.estimate;
+            best.children[i] = entry;
+            best.bounds[i] = NONE;
+            best.count++;
+            // the node may be open again, if one of it's children was forgotten for this one
+            this.leaves.remove(best);
+            this.stored.put(child, entry);
+            Open(entry);
+        }
+        Reopen(best);
+        Backup(best);
+    }
+
+    /**
+     * Fit
+     * @param estimate - the estimated cost of the solutions through a node
+     * @return the estimate, or INFINITE if the path of such a solution doesn't fit in the budget
+     */
+    private int Fit(int estimate) {
+        // a solution of cost c has c + 1 nodes on it's path
+        return estimate < this.budget ? estimate : INFINITE;
+    }
+
+    /**
+     * Forget forgets the worst leaf, and gives it's estimate to it's parent.
+     * @param developed - the node whose successors are being generated, which is never forgotten
+     * @return true if a leaf was forgotten, false if every node in memory is on the paths being developed
+     */
+    private boolean Forget(Entry developed) {
+        Iterator<Entry> worst = this.leaves.descendingIterator();
+        while (worst.hasNext()) {
+            Entry leaf = worst.next();
+            if (leaf == developed)
+                continue;
+            Close(leaf);
+            Remove(leaf);
+            Entry parent = leaf.parent;
+            parent.bounds[leaf.slot] = leaf.estimate;
+            Reopen(parent);
+            this.forgotten++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reopen puts a node in the open list by the best of it's successors that are not in memory, if it has any.
+     * @param node - the node
+     */
+    private void Reopen(Entry node) {
+        int key = INFINITE;
+        boolean missing = false;
+        for (int bound : node.bounds) {
+            if (bound == NONE)
+                continue;
+            missing = true;
+            key = Math.min(key, bound);
+        }
+        Close(node);
+        node.key = key;
+        if (missing)
+            Open(node);
+        else if (node.count == 0 && node.parent != null)
+            Discard(node);
+    }
+
+    /**
+     * Open adds a node to the open list, and to the leaves if it has no children in memory.
+     * @param node - the node
+     */
+    private void Open(Entry node) {
+        this.openList.add(node);
+        if (node.count == 0 && node.parent != null)
+            this.leaves.add(node);
+    }
+
+    /**
+     * Close takes a node out of the open list and the leaves, before it is developed or it's order changes.
+     * @param node - the node
+     */
+    private void Close(Entry node) {
+        this.openList.remove(node);
+        this.leaves.remove(node);
+    }
+
+    /**
+     * Discard removes a node that has no successors left, since all of them are in memory as cheap elsewhere.
+     * @param node - the node
+     */
+    private void Discard(Entry node) {
+        Remove(node);
+        Entry parent = node.parent;
+        parent.bounds[node.slot] = NONE;
+        if (parent.count == 0)
+            Reopen(parent);
+    }
+
+    /**
+     * Remove takes a leaf out of memory.
+     * @param leaf - the leaf, which is not in the open list
+     */
+    private void Remove(Entry leaf) {
+        if (this.stored.get(leaf.state) == leaf)
+            this.stored.remove(leaf.state);
+        Entry parent = leaf.parent;
+        parent.children[leaf.slot] = null;
+        parent.count--;
+    }
+
+    /**
+     * Backup raises the estimates of a node and it's ancestors to the best estimate of their successors.
+     * @param node - the node whose successors changed
+     */
+    private void Backup(Entry node) {
+        while (node != null && node.children != null) {
+            int best = INFINITE;
+            for (int i = 0; i < node.children.length; i++) {
+                if (node.children[i] != null)
+                    best = Math.min(best, node.children[i].estimate);
+                else if (node.bounds[i] != NONE)
+                    best = Math.min(best, node.bounds[i]);
+            }
+            if (best <= node.estimate)
+                return;
+            node.estimate = best;
+            node = node.parent;
+        }
+    }
+
+    /**
+     * BuildTrack replays the moves of the goal's path from the initial state.
+     * @param logic - the tiles game moving logic
+     * @param goal - the goal's node
+     * @return the goal state
+     */
+    private Node BuildTrack(MovesLogic logic, Entry goal) {
+        char[] track = new char[goal.depth];
+        for (Entry current = goal; current.parent != null; current = current.parent)
+            track[current.depth - 1] = current.operator;
+        return BuildTrack(logic, track, track.length);
+    }
+
+    /**
+     * Entry is a node in memory, with the children it keeps and the estimates of the ones it forgot.
+     */
+    private static final class Entry {
+
+        private final State state;
+        private final Entry parent;
+        private final char operator;
+        // the index of the move from the parent, in the moves of the parent's 0
+        private final int slot;
+        private final int depth;
+        private final int heuristic;
+        private final long id;
+        // the backed up estimate, and the open list's order - the best estimate of the successors not in memory
+        private int estimate;
+        private int key;
+        // the successors by their moves, once the node is developed. a successor is in memory, or it's bound is
+        // the estimate to generate it with, or NONE
+        private Entry[] children;
+        private int[] bounds;
+        private int count;
+
+        /**
+         * Constructor.
+         * @param state - the state
+         * @param parent - the parent, or null for the initial state
+         * @param operator - the move from the parent
+         * @param slot - the index of the move from the parent
+         * @param depth - the depth, g(n)
+         * @param heuristic - the distance from the goal, h(n)
+         * @param id - the creation order
+         */
+        private Entry(State state, Entry parent, char operator, int slot, int depth, int heuristic, long id) {
+            this.state = state;
+            this.parent = parent;
+            this.operator = operator;
+            this.slot = slot;
+            this.depth = depth;
+            this.heuristic = heuristic;
+            this.id = id;
+            this.estimate = depth + heuristic;
+            this.key = this.estimate;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MoveTable holds, for every cell of the 0, the moves that are possible from it - the cells of the tiles that
+ * can slide into it and the directions of these moves, always in the order U, D, L, R.
+ * The tables are calculated once per board's rows and columns, so generating moves never checks the board's
+ * borders.
+ */
+public final class MoveTable {
+
+    private static final Map<Integer, MoveTable> tables = new HashMap<Integer, MoveTable>();
+
+    private final int[][] targets;
+    private final char[][] directions;
+
+    /**
+     * Constructor.
+     * @param rows - the number of rows
+     * @param columns - the number of columns
+     */
+    private MoveTable(int rows, int columns) {
+        int cells = rows * columns;
+        this.targets = new int[cells][];
+        this.directions = new char[cells][];
+        for (int blank = 0; blank < cells; blank++) {
+            int x0 = blank % columns;
+            int y0 = blank / columns;
+            int[] cellsOf = new int[4];
+            char[] directionsOf = new char[4];
+            int count = 0;
+            // U - the tile below the 0 moves up
+            if (y0 < rows - 1) {
+                cellsOf[count] = blank + columns;
+                directionsOf[count++] = 'U';
+            }
+            // D - the tile above the 0 moves down
+            if (y0 > 0) {
+                cellsOf[count] = blank - columns;
+                directionsOf[count++] = 'D';
+            }
+            // L - the tile right of the 0 moves left
+            if (x0 < columns - 1) {
+                cellsOf[count] = blank + 1;
+                directionsOf[count++] = 'L';
+            }
+            // R - the tile left of the 0 moves right
+            if (x0 > 0) {
+                cellsOf[count] = blank - 1;
+                directionsOf[count++] = 'R';
+            }
+            this.targets[blank] = Arrays.copyOf(cellsOf, count);
+            this.directions[blank] = Arrays.copyOf(directionsOf, count);
+        }
+    }
+
+    /**
+     * For
+     * @param rows - the number of rows
+     * @param columns - the number of columns
+     * @return the moves table of that board
+     */
+    public static synchronized MoveTable For(int rows, int columns) {
+        return tables.computeIfAbsent(rows * (Shape.MAX_CELLS + 1) + columns, key -> new MoveTable(rows, columns));
+    }
+
+    /**
+     * Targets
+     * @param blank - the cell of the 0
+     * @return the cells of the tiles that can move into it
+     */
+    public int[] Targets(int blank) {
+        return this.targets[blank];
+    }
+
+    /**
+     * Directions
+     * @param blank - the cell of the 0
+     * @return the directions of the moves, matching Targets()
+     */
+    public char[] Directions(int blank) {
+        return this.directions[blank];
+    }
+
+    /**
+     * Opposite
+     * @param direction - a direction
+     * @return the direction that undoes it
+     */
+    public static char Opposite(char direction) {
+        if (direction == 'U') return 'D';
+        if (direction == 'D') return 'U';
+        if (direction == 'L') return 'R';
+        if (direction == 'R') return 'L';
+        return Node.NO_OPERATOR;
+    }
+}
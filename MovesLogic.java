@@ -1,140 +1,99 @@
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * MovesLogic is responsible for the logic of the tiles game, specifically the movements of the tiles.
- * It holds the axes of the zero in a given state, and every time it's GetPossibleMoves() method
- * is being called, it should be re-initialized .
+ * The moves that are possible from every cell of the 0 are taken from the board's MoveTable, and the
+ * successors are written into a buffer that the search supplies, so developing a node allocates nothing
+ * but the new nodes and their states.
  */
 public class MovesLogic {
 
-    private int x0;
-    private int y0;
-    private int size;
-    private int[][] currentState;
+    /**
+     * the most successors a node can have, the size of the buffers given to GenerateMoves().
+     */
+    public static final int MAX_MOVES = 4;
+
+    private final Heuristic heuristic;
+    // the number of the next expansion, the creation order of the nodes
+    private long sequence;
     
+    /**
+     * Constructor, with Manhattan's distance as the heuristic function.
+     */
+    public MovesLogic() {
+        this(new Manhattan());
+    }
+
     /**
      * Constructor.
+     * @param heuristic - the heuristic function that the generated nodes are evaluated by
+     */
+    public MovesLogic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+        this.sequence = 0;
+    }
+
+    /**
+     * getHeuristic
+     * @return the heuristic function that the generated nodes are evaluated by
      */
-    public MovesLogic() { }
+    public Heuristic getHeuristic() {
+        return this.heuristic;
+    }
     
     /**
-     * GetPossibleMoves calculates the possible next moves of a given node with state.
+     * GenerateMoves calculates the possible next moves of a given node, in the order U, D, L, R.
+     * The new nodes share the expansion's sequence number, which orders them after all the earlier nodes.
      * @param current - the node
-     * @return list of nodes that are possible moves.
+     * @param moves - the buffer to write the new nodes to, at least MAX_MOVES long
+     * @return the number of nodes that were written
      */
-    public List<Node> GetPossibleMoves(Node current) { 
-        // find the 0 axes
-        SetZeroAxes(current);
-        // find the optional directions
-        List<Character> optionalDirections = GetOptionalDirections();
-        // generate nodes out of them
-        List<Node> moves = new ArrayList<Node>();
-        for (int i = 0; i < optionalDirections.size(); i++)
-            moves.add(GenerateMove(current, optionalDirections.get(i)));
-        // set the moves' creation time
-        long time = System.nanoTime();
-        for (Node n : moves)
-            n.setTime(time);
-        return moves;
+    public int GenerateMoves(Node current, Node[] moves) {
+        MoveTable table = current.getState().getShape().getMoves();
+        int blank = current.getState().getBlank();
+        int[] targets = table.Targets(blank);
+        char[] directions = table.Directions(blank);
+        // set the moves' creation order
+        long expansion = ++this.sequence;
+        for (int i = 0; i < targets.length; i++) {
+            moves[i] = GenerateMove(current, directions[i], blank, targets[i]);
+            moves[i].setSequence(expansion);
+        }
+        return targets.length;
     }
     
     /**
-     * SetZeroAxes finds the 0 axes
-     * @param current the given node
+     * Move generates the node that a single move leads to.
+     * @param current - the node
+     * @param direction - the move, U, D, L or R
+     * @return the new node
      */
-    private void SetZeroAxes(Node current) {
-        this.size = current.GetSize();
-        this.currentState = current.getStateMatrix();
-        this.x0 = 0;
-        this.y0 = 0;
-        for (int i = 0; i < this.size; i++) {
-            for (int j = 0; j <this.size; j++) {
-                if (this.currentState[i][j] == 0) {
-                    this.x0 = j;
-                    this.y0 = i;
-                    break;
-                }
-            }
+    public Node Move(Node current, char direction) {
+        MoveTable table = current.getState().getShape().getMoves();
+        int blank = current.getState().getBlank();
+        int[] targets = table.Targets(blank);
+        char[] directions = table.Directions(blank);
+        for (int i = 0; i < targets.length; i++) {
+            if (directions[i] == direction)
+                return GenerateMove(current, direction, blank, targets[i]);
         }
+        throw new IllegalArgumentException("the move " + direction + " is not possible from this state");
     }
 
     /**
      * GenerateMove gets the previous node and a direction, and generates the next node
      * @param previous - parent node
      * @param direction - chosen direction
+     * @param blank - the cell of the 0
+     * @param target - the cell of the tile that moves into the 0's cell
      * @return - the new node
      */
-    private Node GenerateMove(Node previous, Character direction) {
-        // initialize the new state to be as the parent's
-        int[][] newState = new int[size][size];
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                newState[i][j] = this.currentState[i][j];
-            }
-        }
-        // acording to the direction, make the move
-        if (direction == 'U') {
-            newState[this.y0][this.x0] = this.currentState[this.y0 + 1][this.x0];
-            newState[this.y0 + 1][this.x0] = 0;
-        } else if (direction == 'D') {
-            newState[this.y0][this.x0] = this.currentState[this.y0 - 1][this.x0];
-            newState[this.y0 - 1][this.x0] = 0;
-        } else if (direction == 'L') {
-            newState[this.y0][this.x0] = this.currentState[this.y0][this.x0 + 1];
-            newState[this.y0][this.x0 + 1] = 0;
-        } else if (direction == 'R') {
-            newState[this.y0][this.x0] = this.currentState[this.y0][this.x0 - 1];
-            newState[this.y0][this.x0 - 1] = 0;
-        }
-        // return the new node
-        return new Node(newState, this.size, previous, direction, previous.getDepth() + 1);
-    }
-
-    /**
-     * GetOptionalDirections calculates the next possible directions from the current node.
-     * @return a list of Characters that represents the optional directions.
-     */
-    private List<Character> GetOptionalDirections() {
-        List<Character> directions = new ArrayList<Character>();  
-        // if the 0 is on the first column
-        if (this.x0 == 0) {
-            if (this.y0 == 0)
-                directions.add(new Character('U'));
-            else if (this.y0 == this.size - 1)
-                directions.add(new Character('D'));
-            else {
-                directions.add(new Character('U'));
-                directions.add(new Character('D'));
-            }
-            directions.add(new Character('L'));
-            return directions;
-        // if the 0 is on the last column    
-        } else if (this.x0 == this.size - 1) {
-            if (this.y0 == 0)
-                directions.add(new Character('U'));
-            else if (this.y0 == this.size - 1)
-                directions.add(new Character('D'));
-            else {
-                directions.add(new Character('U'));
-                directions.add(new Character('D'));
-            }
-            directions.add(new Character('R'));
-            return directions;   
-        }
-        // if the zero is on the first row
-        else if (this.y0 == 0)
-            directions.add(new Character('U'));
-        // if the 0 is on the last row
-        else if (this.y0 == this.size - 1)
-            directions.add(new Character('D'));
-        else {
-            directions.add(new Character('U'));
-            directions.add(new Character('D'));
-        }
-        directions.add(new Character('L'));
-        directions.add(new Character('R'));
-        return directions;
+    private Node GenerateMove(Node previous, char direction, int blank, int target) {
+        // initialize the new state to be as the parent's, and make the move
+        State newState = previous.getState().Copy();
+        int tile = newState.Get(target);
+        newState.MoveBlank(target);
+        // the new node's heuristic only changes by the tile that moved
+        Node move = new Node(newState, previous, direction, previous.getDepth() + 1);
+        move.setHeuristic(this.heuristic.Update(newState, previous.getHeuristic(), tile, target, blank));
+        return move;
     }
-
 }
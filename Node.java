@@ -1,48 +1,48 @@
 /**
  * Node is the data structure of the graph, that represent a specific state of the puzzle.
- * It holds it's state as a matrix, it's parent, this size of the matrix, the operator that led to it, and it's depth.
+ * It holds it's state in a packed form, it's parent, the operator that led to it, and it's depth.
+ * It also holds it's heuristic value h(n) and it's estimate f(n) = g(n) + h(n), where g(n) is the depth,
+ * so the searches never have to calculate them again.
  */
 public class Node {
+
+    /**
+     * the operator of the root, which no operation led to.
+     */
+    public static final char NO_OPERATOR = '\0';
     
-    private int[][] stateMatrix;
-    private int size;
+    private State state;
     private Node parent;
-    private Character operator;
+    private char operator;
     private int depth;
-    private long time;
+    private int heuristic;
+    private int estimate;
+    private long sequence;
     
     /**
      * Constructor.
-     * @param state - the matrix of tiles
-     * @param size - the rows' and columns' size
+     * @param state - the tiles
      * @param parent - the previous node
      * @param operation - that led us to this state
      * @param depth - in the graph
      */
-    public Node(int[][] state, int size, Node parent, Character operation, int depth) {
+    public Node(State state, Node parent, char operation, int depth) {
         this.operator = operation;
         this.parent = parent;
-        this.size = size;
-        this.stateMatrix = state;
+        this.state = state;
         this.depth = depth;
+        this.heuristic = 0;
+        this.estimate = depth;
     }
 
     /**
-     * getStateMatrix
-     * @return the state matrix
+     * getState
+     * @return the state of the tiles
      */
-    public int[][] getStateMatrix() {
-        return this.stateMatrix;
+    public State getState() {
+        return this.state;
     }
 
-    /**
-     * GetSize
-     * @return the matrix's size
-     */
-    public int GetSize() {
-        return this.size;
-    }
-    
     /**
      * getParent
      * @return the node's parent
@@ -68,43 +68,69 @@ public class Node {
     }
     
     /**
-     * setTime set the node's creation time
-     * @param t the time
+     * setHeuristic sets the node's heuristic value, and with it the node's estimate
+     * @param h the heuristic value
+     */
+    public void setHeuristic(int h) {
+        this.heuristic = h;
+        this.estimate = this.depth + h;
+    }
+
+    /**
+     * getHeuristic
+     * @return the node's heuristic value, h(n)
+     */
+    public int getHeuristic() {
+        return this.heuristic;
+    }
+
+    /**
+     * getEstimate
+     * @return the node's estimated cost to the goal through it, f(n) = g(n) + h(n)
+     */
+    public int getEstimate() {
+        return this.estimate;
+    }
+
+    /**
+     * setSequence sets the node's sequence number, which orders the nodes by their creation.
+     * @param sequence the number of the expansion that created the node
      */
-    public void setTime(long t) {
-        this.time = t;
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
     }
     
     /**
-     * getTime
-     * @return the node's creation time
+     * getSequence
+     * @return the node's sequence number, the siblings share the same one
      */
-    public long getTime() {
-        return this.time;
+    public long getSequence() {
+        return this.sequence;
     }
     
     @Override
     public String toString() {
-        // if the operator is null, this is the root of the graph and there was no operation that led to it,
+        // if there is no operator, this is the root of the graph and there was no operation that led to it,
         // so the string of it must be empty.
-        if (this.operator == null)
+        if (this.operator == NO_OPERATOR)
             return "";
-        return this.operator.toString();
+        return String.valueOf(this.operator);
     }
     
     /**
-     * this method compares the nodes by their state matrix.
+     * this method compares the nodes by their state.
      */
     @Override
     public boolean equals(Object other) {
         Node n = (Node) other;
-        int[][] otherMatrix = n.getStateMatrix();
-        for (int i = 0; i < this.size; i++) {
-            for (int j = 0; j < this.size; j++) {
-                if (this.stateMatrix[i][j] != otherMatrix[i][j])
-                    return false;
-            }
-        }
-        return true;
+        return this.state.equals(n.getState());
+    }
+
+    /**
+     * the hash code of a node is the Zobrist hash of it's state, so it matches equals.
+     */
+    @Override
+    public int hashCode() {
+        return this.state.hashCode();
     }
 }
@@ -0,0 +1,145 @@
+import java.util.Arrays;
+
+/**
+ * NodeArena keeps the search tree of the packed states (boards of up to 16 cells) in primitive arrays instead of
+ * Node objects. A node is an index into the arrays: it's packed tiles, the index of it's parent, it's depth and
+ * the operator that led to it, in 2 bits. That is about 14 bytes a node, instead of a Node and it's State.
+ * The track is rebuilt by walking the parents' indices, without comparing any states.
+ */
+public class NodeArena {
+
+    /**
+     * the parent of the root.
+     */
+    public static final int NO_PARENT = -1;
+
+    private static final char[] OPERATORS = {'U', 'D', 'L', 'R'};
+
+    private long[] tiles;
+    private int[] parents;
+    private short[] depths;
+    // 32 operators of 2 bits in every long
+    private long[] operators;
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    public NodeArena() {
+        this.tiles = new long[1024];
+        this.parents = new int[1024];
+        this.depths = new short[1024];
+        this.operators = new long[1024 / 32];
+        this.size = 0;
+    }
+
+    /**
+     * Add adds a node to the tree.
+     * @param packed - the node's packed tiles
+     * @param parent - the parent's index, or NO_PARENT for the root
+     * @param operator - the move that led to the node, U, D, L or R, anything else for the root
+     * @param depth - the node's depth
+     * @return the node's index
+     */
+    public int Add(long packed, int parent, char operator, int depth) {
+        if (this.size == this.tiles.length)
+            Grow();
+        int node = this.size++;
+        this.tiles[node] = packed;
+        this.parents[node] = parent;
+        this.depths[node] = (short) depth;
+        long code = Code(operator);
+        int shift = (node & 31) << 1;
+        this.operators[node >>> 5] = (this.operators[node >>> 5] & ~(3L << shift)) | (code << shift);
+        return node;
+    }
+
+    /**
+     * Tiles
+     * @param node - the node's index
+     * @return the node's packed tiles
+     */
+    public long Tiles(int node) {
+        return this.tiles[node];
+    }
+
+    /**
+     * Parent
+     * @param node - the node's index
+     * @return the parent's index, or NO_PARENT for the root
+     */
+    public int Parent(int node) {
+        return this.parents[node];
+    }
+
+    /**
+     * Depth
+     * @param node - the node's index
+     * @return the node's depth
+     */
+    public int Depth(int node) {
+        return this.depths[node];
+    }
+
+    /**
+     * Operator
+     * @param node - the node's index
+     * @return the move that led to the node
+     */
+    public char Operator(int node) {
+        return OPERATORS[(int) (this.operators[node >>> 5] >>> ((node & 31) << 1)) & 3];
+    }
+
+    /**
+     * Size
+     * @return the number of nodes in the tree
+     */
+    public int Size() {
+        return this.size;
+    }
+
+    /**
+     * Clear removes all the nodes, and keeps the arrays for the next search.
+     */
+    public void Clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Track walks from a node up to the root.
+     * @param node - the node's index
+     * @return the moves from the root to the node, O(depth)
+     */
+    public char[] Track(int node) {
+        char[] track = new char[Depth(node)];
+        int i = track.length;
+        for (int current = node; this.parents[current] != NO_PARENT; current = this.parents[current])
+            track[--i] = Operator(current);
+        return track;
+    }
+
+    /**
+     * Code
+     * @param operator - U, D, L or R
+     * @return the operator's 2 bits, 0 for anything else
+     */
+    private static long Code(char operator) {
+        switch (operator) {
+            case 'D': return 1;
+            case 'L': return 2;
+            case 'R': return 3;
+            default: return 0;
+        }
+    }
+
+    /**
+     * Grow doubles the arrays.
+     */
+    private void Grow() {
+        int capacity = this.tiles.length * 2;
+        this.tiles = Arrays.copyOf(this.tiles, capacity);
+        this.parents = Arrays.copyOf(this.parents, capacity);
+        this.depths = Arrays.copyOf(this.depths, capacity);
+        this.operators = Arrays.copyOf(this.operators, capacity / 32);
+    }
+}
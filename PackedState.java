@@ -0,0 +1,122 @@
+/**
+ * PackedState keeps a board of up to 16 cells in a single long, 4 bits per tile,
+ * the tile of cell i is at bits 4i to 4i+3.
+ */
+public class PackedState extends State {
+
+    public static final int MAX_CELLS = 16;
+
+    private long tiles;
+
+    /**
+     * Constructor.
+     * @param shape - the board, of up to 16 cells
+     */
+    public PackedState(Shape shape) {
+        super(shape);
+        this.tiles = 0L;
+    }
+
+    /**
+     * Copy constructor.
+     * @param other - the state to copy
+     */
+    private PackedState(PackedState other) {
+        super(other);
+        this.tiles = other.tiles;
+    }
+
+    @Override
+    public int Get(int index) {
+        return (int) (this.tiles >>> (index << 2)) & 0xF;
+    }
+
+    @Override
+    public void Set(int index, int value) {
+        UpdateHash(index, Get(index), value);
+        int shift = index << 2;
+        this.tiles = (this.tiles & ~(0xFL << shift)) | ((long) value << shift);
+        if (value == 0)
+            this.blank = index;
+    }
+
+    @Override
+    public void MoveBlank(int target) {
+        int targetShift = target << 2;
+        long tile = (this.tiles >>> targetShift) & 0xFL;
+        UpdateHash(this.blank, 0, (int) tile);
+        UpdateHash(target, (int) tile, 0);
+        // the blank's nibble is 0, so the tile can simply be or-ed into it
+        this.tiles = (this.tiles & ~(0xFL << targetShift)) | (tile << (this.blank << 2));
+        this.blank = target;
+    }
+
+    @Override
+    public State Copy() {
+        return new PackedState(this);
+    }
+
+    @Override
+    public long Key() {
+        // the packed tiles are unique for every state
+        return this.tiles;
+    }
+
+    /**
+     * getTiles
+     * @return the packed tiles
+     */
+    public long getTiles() {
+        return this.tiles;
+    }
+
+    /**
+     * Load replaces all the tiles, for the searches that keep their states as packed tiles.
+     * @param packed - the packed tiles
+     */
+    public void Load(long packed) {
+        this.tiles = packed;
+        this.blank = Blank(packed, this.cells);
+        this.hash = 0L;
+        for (int i = 0; i < this.cells; i++)
+            this.hash ^= this.zobrist[i * this.cells + Get(i)];
+    }
+
+    /**
+     * Blank finds the cell of the 0 in packed tiles.
+     * @param packed - the packed tiles
+     * @param cells - the number of cells
+     * @return the blank's index
+     */
+    public static int Blank(long packed, int cells) {
+        for (int i = 0; i < cells; i++) {
+            if (((packed >>> (i << 2)) & 0xFL) == 0L)
+                return i;
+        }
+        throw new IllegalArgumentException("the state has no 0");
+    }
+
+    /**
+     * MoveBlank slides a tile into the blank's cell of packed tiles, like the MoveBlank of a state.
+     * @param packed - the packed tiles
+     * @param blank - the blank's index
+     * @param target - the index of the tile that moves
+     * @return the packed tiles after the move
+     */
+    public static long MoveBlank(long packed, int blank, int target) {
+        int targetShift = target << 2;
+        long tile = (packed >>> targetShift) & 0xFL;
+        // the blank's nibble is 0, so the tile can simply be or-ed into it
+        return (packed & ~(0xFL << targetShift)) | (tile << (blank << 2));
+    }
+
+    /**
+     * this method compares the states by their packed tiles.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PackedState))
+            return false;
+        return this.tiles == ((PackedState) other).tiles;
+    }
+}
@@ -0,0 +1,220 @@
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ParallelAStar is a hash distributed A* (HDA*) that runs on all the cores. Every state is owned by a single
+ * worker thread, chosen by the state's Zobrist hash, and each worker has it's own open list and closed list for
+ * the states it owns. A worker sends the successors it generates to their owners through lock-free queues.
+ * The search goes on after a goal is found, until no worker has a node cheaper than the best goal, so the
+ * solution is optimal like A*'s.
+ */
+public class ParallelAStar extends Algorithm {
+
+    private final int threads;
+    private Worker[] workers;
+    private Node bestGoal;
+    private volatile int bestCost;
+    private volatile boolean done;
+    // the number of nodes on their way to a worker, plus the number of workers that have nodes to develop.
+    // the search is over once it is 0.
+    private AtomicLong work;
+
+    /**
+     * Constructor, of a square board with the standard goal, with a worker for every core.
+     * @param size - board size
+     * @param initState - the matrix in a string form
+     */
+    public ParallelAStar(int size, String initState) {
+        this(Shape.Square(size), PuzzleValidator.Parse(Shape.Square(size), initState),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     * @param threads - the number of workers
+     */
+    public ParallelAStar(Shape shape, int[] tiles, int threads) {
+        super(shape, tiles);
+        this.threads = threads;
+    }
+
+    @Override
+    public int Cost() {
+        // the cost here is simply the depth of the result node.
+        return this.goalState.getDepth();
+    }
+
+    @Override
+    public Node Search(MovesLogic logic) {
+        this.metrics.Start();
+        this.initialState.setHeuristic(logic.getHeuristic().Evaluate(this.initialState.getState()));
+        this.metrics.Evaluated(1);
+        this.bestGoal = null;
+        this.bestCost = Integer.MAX_VALUE;
+        this.done = false;
+        this.work = new AtomicLong(0);
+        this.workers = new Worker[this.threads];
+        for (int i = 0; i < this.threads; i++)
+            this.workers[i] = new Worker(new MovesLogic(logic.getHeuristic()), this.metrics.Part());
+        // the initial state is sent to it's owner like any other node
+        Send(this.initialState);
+        Thread[] running = new Thread[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            running[i] = new Thread(this.workers[i], "hda-worker-" + i);
+            running[i].start();
+        }
+        for (Thread thread : running) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.done = true;
+            }
+        }
+        for (Worker worker : this.workers)
+            this.developedNodes += worker.developed;
+        this.metrics.Finish();
+        if (this.bestGoal == null)
+            return null;
+        this.goalState = this.bestGoal;
+        return this.bestGoal;
+    }
+
+    /**
+     * Owner chooses the worker that owns a state.
+     * @param node - the node of the state
+     * @return the worker's index
+     */
+    private int Owner(Node node) {
+        long hash = node.getState().getHash();
+        return (int) (((hash >>> 32) ^ hash) & Integer.MAX_VALUE) % this.threads;
+    }
+
+    /**
+     * Send passes a node to the worker that owns it's state.
+     * @param node - the node
+     */
+    private void Send(Node node) {
+        // count the node before it's owner can take it, so the work never drops to 0 while it is on it's way
+        this.work.incrementAndGet();
+        this.workers[Owner(node)].inbox.offer(node);
+    }
+
+    /**
+     * FoundGoal keeps a goal if it is cheaper than the best goal so far.
+     * @param goal - the goal node
+     */
+    private synchronized void FoundGoal(Node goal) {
+        if (goal.getDepth() < this.bestCost) {
+            this.bestGoal = goal;
+            this.bestCost = goal.getDepth();
+        }
+    }
+
+    /**
+     * Worker develops the nodes of the states it owns.
+     */
+    private class Worker implements Runnable {
+
+        private final Queue<Node> inbox = new ConcurrentLinkedQueue<Node>();
+        private final BucketQueue openList = new BucketQueue();
+        // the cheapest depth each owned state was reached at
+        private final LongIntHashMap closedList = new LongIntHashMap();
+        // the bigger boards' hashes may collide, so the closed list keeps exact keys
+        private final StateKeys keys = new StateKeys();
+        private final MovesLogic logic;
+        // the worker's own part of the metrics, so the counters are written by a single thread
+        private final SearchMetrics metrics;
+        private long developed = 0;
+        private boolean busy = false;
+
+        /**
+         * Constructor.
+         * @param logic - the worker's own moves logic
+         * @param metrics - the worker's part of the metrics
+         */
+        Worker(MovesLogic logic, SearchMetrics metrics) {
+            this.logic = logic;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void run() {
+            Node[] moves = new Node[MovesLogic.MAX_MOVES];
+            while (!done) {
+                Node received;
+                while ((received = this.inbox.poll()) != null) {
+                    // a received node passes it's unit of work to an idle worker
+                    if (this.busy)
+                        work.decrementAndGet();
+                    this.busy = true;
+                    Receive(received);
+                }
+                if (this.openList.MinimumEstimate() < bestCost) {
+                    Develop(this.openList.Remove(), moves);
+                    continue;
+                }
+                // nothing here can lead to a cheaper goal
+                if (this.busy) {
+                    this.busy = false;
+                    if (work.decrementAndGet() == 0)
+                        done = true;
+                } else if (work.get() == 0) {
+                    done = true;
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        /**
+         * Receive adds a node to the open list, unless it's state was already reached as cheap.
+         * @param node - the node
+         */
+        private void Receive(Node node) {
+            long key = this.keys.Key(node.getState());
+            if (node.getDepth() >= this.closedList.Get(key, Integer.MAX_VALUE)) {
+                this.metrics.Duplicate();
+                return;
+            }
+            this.closedList.Put(key, node.getDepth());
+            this.openList.Add(node);
+            this.metrics.Frontier(this.openList.Size());
+            this.metrics.Closed(this.closedList.Size());
+        }
+
+        /**
+         * Develop checks if a node is a goal, and otherwise sends it's successors to their owners.
+         * @param current - the node
+         * @param moves - the buffer for the successors
+         */
+        private void Develop(Node current, Node[] moves) {
+            // a cheaper way to this state was found after this node was added
+            if (current.getDepth() > this.closedList.Get(this.keys.Key(current.getState()), Integer.MAX_VALUE)) {
+                this.metrics.Duplicate();
+                return;
+            }
+            this.developed++;
+            this.metrics.Expanded();
+            if (current.equals(goalState)) {
+                FoundGoal(current);
+                return;
+            }
+            int self = Owner(current);
+            int count = this.logic.GenerateMoves(current, moves);
+            this.metrics.Generated(count);
+            this.metrics.Evaluated(count);
+            for (int i = 0; i < count; i++) {
+                if (moves[i].getEstimate() >= bestCost)
+                    continue;
+                if (Owner(moves[i]) == self)
+                    Receive(moves[i]);
+                else
+                    Send(moves[i]);
+            }
+        }
+    }
+}
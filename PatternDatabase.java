@@ -0,0 +1,452 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * PatternDatabase is an additive heuristic made of disjoint patterns - groups of tiles. For every placement of a
+ * pattern's tiles it holds the number of moves of these tiles that are needed to bring them to their goal cells.
+ * The tables are built once by a breadth-first search backwards from the goal state, and saved to a binary file
+ * that is memory-mapped when it is loaded. Every move slides a tile of a single pattern, so the sum of the
+ * patterns' values never overestimates.
+ */
+public class PatternDatabase implements Heuristic {
+
+    private static final int MAGIC = 0x50444231;
+    private static final byte UNSEEN = (byte) 0xFF;
+    private static final long MAX_SEARCH_STATES = 1L << 28;
+
+    private final int size;
+    private final int cells;
+    private final int[][] patterns;
+    private final int[] patternOf;
+    private final int[] placeOf;
+    private final ByteBuffer[] tables;
+    // the last known cells of each pattern's tiles, every thread keeps it's own
+    private final ThreadLocal<int[][]> positions;
+
+    /**
+     * Constructor.
+     * @param size - the rows' and columns' size
+     * @param patterns - the tiles of each pattern
+     * @param tables - the table of each pattern, indexed by the rank of the pattern's placement
+     */
+    private PatternDatabase(int size, int[][] patterns, ByteBuffer[] tables) {
+        this.size = size;
+        this.cells = size * size;
+        this.patterns = patterns;
+        this.tables = tables;
+        // remember for every tile the pattern it belongs to, and it's place in that pattern
+        this.patternOf = new int[this.cells];
+        this.placeOf = new int[this.cells];
+        Arrays.fill(this.patternOf, -1);
+        for (int p = 0; p < patterns.length; p++) {
+            for (int i = 0; i < patterns[p].length; i++) {
+                this.patternOf[patterns[p][i]] = p;
+                this.placeOf[patterns[p][i]] = i;
+            }
+        }
+        this.positions = ThreadLocal.withInitial(() -> {
+            int[][] positions = new int[patterns.length][];
+            for (int p = 0; p < patterns.length; p++)
+                positions[p] = new int[patterns[p].length];
+            return positions;
+        });
+    }
+
+    /**
+     * Open loads the database from a file, or builds it with the default patterns and saves it if the file
+     * does not exist yet.
+     * @param path - the file
+     * @param size - the rows' and columns' size
+     * @return the database
+     * @throws IOException if the file can't be read or written
+     */
+    public static PatternDatabase Open(String path, int size) throws IOException {
+        if (new File(path).exists()) {
+            PatternDatabase database = Load(path);
+            if (database.size != size)
+                throw new IOException(path + " holds a database for size " + database.size + ", not " + size);
+            return database;
+        }
+        PatternDatabase database = Build(size, DefaultPatterns(size));
+        database.Save(path);
+        return database;
+    }
+
+    /**
+     * DefaultPatterns splits the tiles into disjoint patterns - 4-4 for 3x3, 6-6-3 for 4x4 and 5-5-5-5-4 for 5x5.
+     * Bigger boards are split into the largest groups of consecutive tiles that can still be searched.
+     * @param size - the rows' and columns' size
+     * @return the tiles of each pattern
+     */
+    public static int[][] DefaultPatterns(int size) {
+        if (size == 3)
+            return new int[][] {{1, 2, 3, 4}, {5, 6, 7, 8}};
+        if (size == 4)
+            return new int[][] {{1, 5, 6, 9, 10, 13}, {7, 8, 11, 12, 14, 15}, {2, 3, 4}};
+        if (size == 5)
+            return new int[][] {{1, 2, 3, 6, 7}, {4, 5, 8, 9, 10}, {11, 12, 16, 17, 21},
+                {13, 14, 15, 18, 19}, {20, 22, 23, 24}};
+        int cells = size * size;
+        int groupSize = 1;
+        // a group has at most all the tiles, the placements of more tiles than cells are 0
+        while (groupSize < cells - 1 && Placements(cells, groupSize + 1) * cells <= MAX_SEARCH_STATES)
+            groupSize++;
+        int tiles = cells - 1;
+        int[][] patterns = new int[(tiles + groupSize - 1) / groupSize][];
+        for (int p = 0; p < patterns.length; p++) {
+            int count = Math.min(groupSize, tiles - p * groupSize);
+            patterns[p] = new int[count];
+            for (int i = 0; i < count; i++)
+                patterns[p][i] = p * groupSize + i + 1;
+        }
+        return patterns;
+    }
+
+    /**
+     * Build searches the tables of the given patterns.
+     * @param size - the rows' and columns' size
+     * @param patterns - the tiles of each pattern, every tile in one pattern at the most
+     * @return the database, held in memory
+     */
+    public static PatternDatabase Build(int size, int[][] patterns) {
+        if (size * size > Long.SIZE)
+            throw new IllegalArgumentException("pattern databases are built for boards of up to 64 cells");
+        ByteBuffer[] tables = new ByteBuffer[patterns.length];
+        for (int p = 0; p < patterns.length; p++)
+            tables[p] = ByteBuffer.wrap(BuildTable(size, patterns[p]));
+        return new PatternDatabase(size, patterns, tables);
+    }
+
+    /**
+     * Load maps a database file to memory, so only the pages that are used are read.
+     * @param path - the file
+     * @return the database
+     * @throws IOException if the file can't be read, is not a database or doesn't have all the tables
+     */
+    public static PatternDatabase Load(String path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r");
+                FileChannel channel = file.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < 12 || buffer.getInt() != MAGIC)
+                throw new IOException(path + " is not a pattern database");
+            int size = buffer.getInt();
+            int count = buffer.getInt();
+            if (size < 2 || size * size > Long.SIZE || count < 0 || count > size * size)
+                throw new IOException(path + " has a bad header");
+            int cells = size * size;
+            int[][] patterns = new int[count][];
+            long length = 0;
+            for (int p = 0; p < patterns.length; p++) {
+                int tiles = buffer.remaining() >= 4 ? buffer.getInt() : -1;
+                if (tiles < 0 || tiles >= cells || buffer.remaining() < tiles * 4)
+                    throw new IOException(path + " has a bad header");
+                patterns[p] = new int[tiles];
+                for (int i = 0; i < tiles; i++) {
+                    patterns[p][i] = buffer.getInt();
+                    if (patterns[p][i] < 1 || patterns[p][i] >= cells)
+                        throw new IOException(path + " has a bad header");
+                }
+                length += Placements(cells, tiles);
+            }
+            // the tables follow the header one after the other
+            if (buffer.remaining() != length)
+                throw new IOException(path + " has " + buffer.remaining() + " bytes of tables, the patterns need "
+                        + length);
+            ByteBuffer[] tables = new ByteBuffer[patterns.length];
+            int offset = buffer.position();
+            for (int p = 0; p < patterns.length; p++) {
+                int tableLength = (int) Placements(cells, patterns[p].length);
+                tables[p] = buffer.slice(offset, tableLength);
+                offset += tableLength;
+            }
+            return new PatternDatabase(size, patterns, tables);
+        }
+    }
+
+    /**
+     * Save writes the database to a file: a header with the size and the patterns, followed by the tables.
+     * @param path - the file
+     * @throws IOException if the file can't be written
+     */
+    public void Save(String path) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(path)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(this.size);
+            output.writeInt(this.patterns.length);
+            for (int[] pattern : this.patterns) {
+                output.writeInt(pattern.length);
+                for (int tile : pattern)
+                    output.writeInt(tile);
+            }
+            for (ByteBuffer table : this.tables) {
+                for (int i = 0; i < table.limit(); i++)
+                    output.writeByte(table.get(i));
+            }
+        }
+    }
+
+    @Override
+    public int Evaluate(State state) {
+        int[][] positions = this.positions.get();
+        for (int index = 0; index < this.cells; index++) {
+            int tile = state.Get(index);
+            if (tile != 0 && this.patternOf[tile] >= 0)
+                positions[this.patternOf[tile]][this.placeOf[tile]] = index;
+        }
+        int distance = 0;
+        for (int p = 0; p < this.patterns.length; p++)
+            distance += this.tables[p].get(Rank(positions[p], this.cells));
+        return distance;
+    }
+
+    @Override
+    public int Update(State state, int distance, int tile, int from, int to) {
+        // only the moved tile's pattern has changed
+        int p = this.patternOf[tile];
+        if (p < 0)
+            return distance;
+        int[] positions = this.positions.get()[p];
+        int place = this.placeOf[tile];
+        if (!Holds(state, p, positions, place, from)) {
+            for (int index = 0; index < this.cells; index++) {
+                int other = state.Get(index);
+                if (other != 0 && this.patternOf[other] == p)
+                    positions[this.placeOf[other]] = index;
+            }
+        }
+        positions[place] = to;
+        int newValue = this.tables[p].get(Rank(positions, this.cells));
+        // the parent's cells are kept, it's other children are updated next
+        positions[place] = from;
+        int oldValue = this.tables[p].get(Rank(positions, this.cells));
+        return distance - oldValue + newValue;
+    }
+
+    /**
+     * Holds checks that the kept cells of a pattern are still the cells of it's tiles, which is true while the
+     * moves since they were kept slid tiles of other patterns.
+     * @param state - the state, after the move
+     * @param p - the pattern
+     * @param positions - the kept cell of each of the pattern's tiles
+     * @param place - the moved tile's place in the pattern
+     * @param from - the cell the tile was moved from
+     * @return true if the kept cells are the parent's
+     */
+    private boolean Holds(State state, int p, int[] positions, int place, int from) {
+        if (positions[place] != from)
+            return false;
+        for (int i = 0; i < positions.length; i++) {
+            if (i != place && state.Get(positions[i]) != this.patterns[p][i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * BuildTable searches backwards from the goal over the placements of a pattern's tiles and the 0.
+     * Moving a tile of the pattern costs 1, moving any other tile costs nothing, so each layer of the search
+     * first takes all the placements that are reachable for free. The table keeps, for every placement of
+     * the pattern's tiles, the lowest cost over all the cells of the 0.
+     * @param size - the rows' and columns' size
+     * @param pattern - the pattern's tiles
+     * @return the table, indexed by the rank of the placement
+     */
+    private static byte[] BuildTable(int size, int[] pattern) {
+        int cells = size * size;
+        long placements = Placements(cells, pattern.length);
+        if (placements * cells > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("a pattern of " + pattern.length + " tiles is too big to search");
+        int states = (int) placements * cells;
+        byte[] cost = new byte[states];
+        Arrays.fill(cost, UNSEEN);
+        long[] queuedCurrent = new long[(states >>> 6) + 1];
+        long[] queuedNext = new long[(states >>> 6) + 1];
+        IntList current = new IntList();
+        IntList next = new IntList();
+        // a search state is the rank of the tiles' placement times the number of cells, plus the 0's cell
+        int[] positions = new int[pattern.length];
+        for (int i = 0; i < pattern.length; i++)
+            positions[i] = pattern[i] - 1;
+        current.Add(Rank(positions, cells) * cells + cells - 1);
+        int[] occupant = new int[cells];
+        int layer = 0;
+        while (current.Size() > 0) {
+            if (layer >= (UNSEEN & 0xFF))
+                throw new IllegalStateException("the pattern's distances don't fit in a byte");
+            for (int i = 0; i < current.Size(); i++) {
+                int state = current.Get(i);
+                if (cost[state] != UNSEEN)
+                    continue;
+                cost[state] = (byte) layer;
+                int rank = state / cells;
+                int blank = state % cells;
+                Unrank(rank, cells, positions);
+                Arrays.fill(occupant, -1);
+                for (int k = 0; k < positions.length; k++)
+                    occupant[positions[k]] = k;
+                for (int neighbor : Neighbors(blank, size)) {
+                    if (neighbor < 0)
+                        continue;
+                    int k = occupant[neighbor];
+                    if (k < 0) {
+                        // a tile out of the pattern moves, which is free
+                        int child = rank * cells + neighbor;
+                        if (cost[child] == UNSEEN && Queue(queuedCurrent, child))
+                            current.Add(child);
+                    } else {
+                        positions[k] = blank;
+                        int child = Rank(positions, cells) * cells + neighbor;
+                        positions[k] = neighbor;
+                        if (cost[child] == UNSEEN && Queue(queuedNext, child))
+                            next.Add(child);
+                    }
+                }
+            }
+            // move on to the next layer
+            IntList swap = current;
+            current = next;
+            next = swap;
+            next.Clear();
+            long[] swapQueued = queuedCurrent;
+            queuedCurrent = queuedNext;
+            queuedNext = swapQueued;
+            Arrays.fill(queuedNext, 0L);
+            layer++;
+        }
+        // the value of a placement is the cheapest over all the cells of the 0
+        byte[] table = new byte[(int) placements];
+        for (int rank = 0; rank < placements; rank++) {
+            int best = UNSEEN & 0xFF;
+            for (int blank = 0; blank < cells; blank++) {
+                int value = cost[rank * cells + blank] & 0xFF;
+                if (value < best)
+                    best = value;
+            }
+            table[rank] = (byte) best;
+        }
+        return table;
+    }
+
+    /**
+     * Queue marks a search state as queued.
+     * @param queued - the bits of the queued states
+     * @param state - the search state
+     * @return true if it wasn't queued before
+     */
+    private static boolean Queue(long[] queued, int state) {
+        long bit = 1L << (state & 63);
+        if ((queued[state >>> 6] & bit) != 0)
+            return false;
+        queued[state >>> 6] |= bit;
+        return true;
+    }
+
+    /**
+     * Neighbors
+     * @param blank - the 0's cell
+     * @param size - the rows' and columns' size
+     * @return the cells next to it, -1 for the sides that are out of the board
+     */
+    private static int[] Neighbors(int blank, int size) {
+        int x0 = blank % size;
+        int y0 = blank / size;
+        return new int[] {
+            y0 < size - 1 ? blank + size : -1,
+            y0 > 0 ? blank - size : -1,
+            x0 < size - 1 ? blank + 1 : -1,
+            x0 > 0 ? blank - 1 : -1
+        };
+    }
+
+    /**
+     * Placements
+     * @param cells - the number of cells
+     * @param tiles - the number of tiles
+     * @return the number of ways to place the tiles in the cells, cells! / (cells - tiles)!
+     */
+    private static long Placements(int cells, int tiles) {
+        long count = 1;
+        for (int i = 0; i < tiles; i++)
+            count *= cells - i;
+        return count;
+    }
+
+    /**
+     * Rank numbers a placement of tiles, such that all the placements are numbered 0 to Placements() - 1.
+     * Each tile's cell is counted among the cells that the previous tiles didn't take.
+     * @param positions - the cell of each tile
+     * @param cells - the number of cells
+     * @return the placement's rank
+     */
+    private static int Rank(int[] positions, int cells) {
+        int rank = 0;
+        for (int i = 0; i < positions.length; i++) {
+            int digit = positions[i];
+            for (int j = 0; j < i; j++) {
+                if (positions[j] < positions[i])
+                    digit--;
+            }
+            rank = rank * (cells - i) + digit;
+        }
+        return rank;
+    }
+
+    /**
+     * Unrank finds the placement of a rank, the reverse of Rank().
+     * @param rank - the placement's rank
+     * @param cells - the number of cells
+     * @param positions - filled with the cell of each tile
+     */
+    private static void Unrank(int rank, int cells, int[] positions) {
+        for (int i = positions.length - 1; i >= 0; i--) {
+            positions[i] = rank % (cells - i);
+            rank /= cells - i;
+        }
+        // turn each digit, which counts the free cells, into a cell
+        long taken = 0L;
+        for (int i = 0; i < positions.length; i++) {
+            int digit = positions[i];
+            int cell = 0;
+            while ((taken & (1L << cell)) != 0 || digit-- > 0)
+                cell++;
+            positions[i] = cell;
+            taken |= 1L << cell;
+        }
+    }
+
+    /**
+     * IntList is a growing array of ints, for the search's layers.
+     */
+    private static class IntList {
+
+        private int[] values = new int[1024];
+        private int size = 0;
+
+        void Add(int value) {
+            if (this.size == this.values.length)
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            this.values[this.size++] = value;
+        }
+
+        int Get(int index) {
+            return this.values[index];
+        }
+
+        int Size() {
+            return this.size;
+        }
+
+        void Clear() {
+            this.size = 0;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProgressLog prints a search's metrics periodically from a daemon thread, so a long search can be watched
+ * without a profiler. It is closed when the search is over.
+ */
+public class ProgressLog implements AutoCloseable {
+
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Constructor, starts printing.
+     * @param metrics - the search's metrics
+     * @param periodMillis - the time between two prints
+     * @param out - the stream to print to
+     */
+    public ProgressLog(SearchMetrics metrics, long periodMillis, PrintStream out) {
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "search-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.scheduleAtFixedRate(() -> out.println("progress: " + metrics), periodMillis, periodMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        this.timer.shutdownNow();
+    }
+}
@@ -0,0 +1,378 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PuzzleReader reads the puzzles of a batch file straight from it's bytes, which are memory-mapped a window at a
+ * time, so a file of millions of puzzles is read without a String for every line, field and tile.
+ * A text file has a puzzle per line, as SearchEngine.SolveBatch describes. A line of plain numbers is decoded in
+ * place; any other line (a sign, a letter, a missing or an extra field) is decoded to a string and split like
+ * before, so it gets exactly the result or the error it got before.
+ * A binary file starts with the magic number, followed by a record of every puzzle: the algorithm's code, the
+ * rows, the columns and 1 if a goal state follows or 0, a byte each, then the tiles row by row, a byte each, and
+ * the goal's tiles if there are any.
+ */
+public class PuzzleReader implements Closeable {
+
+    /**
+     * the first 4 bytes of a binary puzzles file, "PUZ1".
+     */
+    public static final int MAGIC = 0x50555A31;
+
+    // the most bytes mapped at a time, and so the longest line or record
+    private static final long WINDOW = 1L << 26;
+    // the longest number that can't overflow an int
+    private static final int MAX_DIGITS = 9;
+
+    private final FileChannel channel;
+    private final long size;
+    private final boolean binary;
+    private MappedByteBuffer window;
+    private long windowStart;
+    // the file's offset of the next line or record
+    private long position;
+
+    /**
+     * Constructor, opens the file and checks the magic number of a binary one.
+     * @param path - the puzzles file
+     * @param binary - true for the binary format, false for text lines
+     * @throws IOException if the file can't be read, or a binary one doesn't start with the magic number
+     */
+    public PuzzleReader(Path path, boolean binary) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = this.channel.size();
+        this.binary = binary;
+        if (!binary)
+            return;
+        if (this.size < 4 || Map(0, 4).getInt(0) != MAGIC) {
+            this.channel.close();
+            throw new IOException(path + " is not a binary puzzles file");
+        }
+        this.position = 4;
+    }
+
+    /**
+     * Next reads the next puzzle, skipping the empty lines.
+     * @return the puzzle, or null at the end of the file
+     * @throws IOException if the file can't be read, or a line or a record is cut or too long
+     */
+    public Puzzle Next() throws IOException {
+        if (this.binary)
+            return NextRecord();
+        while (this.position < this.size) {
+            Puzzle puzzle = NextLine();
+            if (puzzle != null)
+                return puzzle;
+        }
+        return null;
+    }
+
+    /**
+     * NextLine reads the line at the position, which ends at a '\n' or a '\r' like BufferedReader's lines.
+     * @return the puzzle, or null if the line is empty
+     * @throws IOException if the line is longer than a window
+     */
+    private Puzzle NextLine() throws IOException {
+        MappedByteBuffer buffer = Map(this.position, 1);
+        int start = (int) (this.position - this.windowStart);
+        int end = start;
+        while (end < buffer.limit() && buffer.get(end) != '\n' && buffer.get(end) != '\r')
+            end++;
+        if (end == buffer.limit() && this.windowStart + end < this.size) {
+            if (start == 0)
+                throw new IOException("the line at " + this.position + " is longer than " + WINDOW + " bytes");
+            // the line goes on after the window, it is read again from a window that starts with it
+            this.window = null;
+            return NextLine();
+        }
+        this.position = this.windowStart + end + 1;
+        // trimmed like String.trim, every character up to the space
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ')
+            start++;
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ')
+            end--;
+        if (start == end)
+            return null;
+        Puzzle puzzle = Decode(buffer, start, end);
+        if (puzzle != null)
+            return puzzle;
+        byte[] line = new byte[end - start];
+        buffer.get(start, line);
+        return new Puzzle(new String(line, Charset.defaultCharset()).trim().split("\\s+"));
+    }
+
+    /**
+     * Decode decodes a line of plain numbers: the algorithm's code, the board size as a number or rows x columns,
+     * the tiles seperated by '-' and an optional goal state.
+     * @param buffer - the window
+     * @param start - the line's first byte, which is not a space
+     * @param end - the byte after the line's last one, which is not a space
+     * @return the puzzle, or null if the line is not only plain numbers in that form
+     */
+    private static Puzzle Decode(MappedByteBuffer buffer, int start, int end) {
+        int at = start;
+        int algorithmEnd = Field(buffer, at, end);
+        // the code of an unknown algorithm is written back as it was, a plain number has no leading zeros
+        if (buffer.get(at) == '0' && algorithmEnd - at > 1)
+            return null;
+        int algorithm = Number(buffer, at, algorithmEnd);
+        at = Skip(buffer, algorithmEnd, end);
+        int sizeEnd = Field(buffer, at, end);
+        int cross = at;
+        while (cross < sizeEnd && buffer.get(cross) != 'x' && buffer.get(cross) != 'X')
+            cross++;
+        int rows = Number(buffer, at, cross);
+        int columns = cross == sizeEnd ? rows : Number(buffer, cross + 1, sizeEnd);
+        at = Skip(buffer, sizeEnd, end);
+        int stateEnd = Field(buffer, at, end);
+        int[] tiles = Tiles(buffer, at, stateEnd);
+        at = Skip(buffer, stateEnd, end);
+        int goalEnd = Field(buffer, at, end);
+        int[] goal = at == end ? null : Tiles(buffer, at, goalEnd);
+        if (algorithm < 0 || rows < 0 || columns < 0 || tiles == null || (at < end && goal == null)
+                || goalEnd != end)
+            return null;
+        return new Puzzle(algorithm, rows, columns, tiles, goal);
+    }
+
+    /**
+     * Field finds the end of a field.
+     * @param buffer - the window
+     * @param start - the field's first byte
+     * @param end - the line's end
+     * @return the first space after the field, or the line's end
+     */
+    private static int Field(MappedByteBuffer buffer, int start, int end) {
+        while (start < end && (buffer.get(start) & 0xFF) > ' ')
+            start++;
+        return start;
+    }
+
+    /**
+     * Skip skips the spaces between fields.
+     * @param buffer - the window
+     * @param start - the first space
+     * @param end - the line's end
+     * @return the next field's first byte, or the line's end
+     */
+    private static int Skip(MappedByteBuffer buffer, int start, int end) {
+        while (start < end && IsSpace(buffer.get(start)))
+            start++;
+        return start;
+    }
+
+    /**
+     * IsSpace
+     * @param value - a byte of a line
+     * @return true if the byte is one of the spaces that seperate the fields
+     */
+    private static boolean IsSpace(byte value) {
+        return value == ' ' || value == '\t' || value == '\f' || value == 0x0B;
+    }
+
+    /**
+     * Number decodes a plain number.
+     * @param buffer - the window
+     * @param start - the first digit
+     * @param end - the byte after the last digit
+     * @return the number, or -1 if there are no digits, too many, or anything else
+     */
+    private static int Number(MappedByteBuffer buffer, int start, int end) {
+        if (start == end || end - start > MAX_DIGITS)
+            return -1;
+        int number = 0;
+        for (int i = start; i < end; i++) {
+            byte digit = buffer.get(i);
+            if (digit < '0' || digit > '9')
+                return -1;
+            number = number * 10 + digit - '0';
+        }
+        return number;
+    }
+
+    /**
+     * Tiles decodes a state, plain numbers seperated by '-'.
+     * @param buffer - the window
+     * @param start - the state's first byte
+     * @param end - the byte after the state
+     * @return the tiles, or null if one of them is not a plain number
+     */
+    private static int[] Tiles(MappedByteBuffer buffer, int start, int end) {
+        int count = 1;
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == '-')
+                count++;
+        }
+        int[] tiles = new int[count];
+        int from = start;
+        for (int k = 0; k < count; k++) {
+            int to = from;
+            while (to < end && buffer.get(to) != '-')
+                to++;
+            tiles[k] = Number(buffer, from, to);
+            if (tiles[k] < 0)
+                return null;
+            from = to + 1;
+        }
+        return tiles;
+    }
+
+    /**
+     * NextRecord reads the binary record at the position.
+     * @return the puzzle, or null at the end of the file
+     * @throws IOException if the file ends in the middle of the record
+     */
+    private Puzzle NextRecord() throws IOException {
+        if (this.position == this.size)
+            return null;
+        MappedByteBuffer buffer = Record(4);
+        int start = (int) (this.position - this.windowStart);
+        int algorithm = buffer.get(start) & 0xFF;
+        int rows = buffer.get(start + 1) & 0xFF;
+        int columns = buffer.get(start + 2) & 0xFF;
+        boolean hasGoal = buffer.get(start + 3) != 0;
+        int cells = rows * columns;
+        buffer = Record(4 + (hasGoal ? 2 * cells : cells));
+        start = (int) (this.position - this.windowStart) + 4;
+        int[] tiles = new int[cells];
+        for (int k = 0; k < cells; k++)
+            tiles[k] = buffer.get(start + k) & 0xFF;
+        int[] goal = null;
+        if (hasGoal) {
+            goal = new int[cells];
+            for (int k = 0; k < cells; k++)
+                goal[k] = buffer.get(start + cells + k) & 0xFF;
+        }
+        this.position += 4 + (hasGoal ? 2 * cells : cells);
+        return new Puzzle(algorithm, rows, columns, tiles, goal);
+    }
+
+    /**
+     * Record maps the bytes of a record at the position.
+     * @param length - the record's length
+     * @return the window, which has the whole record
+     * @throws IOException if the file ends before the record does
+     */
+    private MappedByteBuffer Record(int length) throws IOException {
+        if (this.position + length > this.size)
+            throw new IOException("the puzzles file ends in the middle of the record at " + this.position);
+        return Map(this.position, length);
+    }
+
+    /**
+     * Map maps a window of the file that has the given bytes, the current one if it has them.
+     * @param offset - the first byte
+     * @param length - the number of bytes, or more than there are to the end of the file
+     * @return the window
+     * @throws IOException if the file can't be mapped
+     */
+    private MappedByteBuffer Map(long offset, long length) throws IOException {
+        long end = Math.min(this.size, offset + length);
+        if (this.window == null || offset < this.windowStart || end > this.windowStart + this.window.limit()) {
+            this.windowStart = offset;
+            this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                    Math.min(this.size - offset, Math.max(WINDOW, length)));
+        }
+        return this.window;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Puzzle is a decoded puzzle of the batch, or the fields of a line that is left to SearchEngine.SolveLine.
+     */
+    public static final class Puzzle {
+
+        private final int algorithm;
+        private final int rows;
+        private final int columns;
+        private final int[] tiles;
+        private final int[] goal;
+        private final String[] fields;
+
+        /**
+         * Constructor, of a decoded puzzle.
+         * @param algorithm - the algorithm's code
+         * @param rows - the number of rows
+         * @param columns - the number of columns
+         * @param tiles - the initial state's tiles, row by row
+         * @param goal - the goal state's tiles, or null for the standard goal
+         */
+        private Puzzle(int algorithm, int rows, int columns, int[] tiles, int[] goal) {
+            this.algorithm = algorithm;
+            this.rows = rows;
+            this.columns = columns;
+            this.tiles = tiles;
+            this.goal = goal;
+            this.fields = null;
+        }
+
+        /**
+         * Constructor, of a line that is not plain numbers.
+         * @param fields - the line's fields
+         */
+        private Puzzle(String[] fields) {
+            this.algorithm = -1;
+            this.rows = -1;
+            this.columns = -1;
+            this.tiles = null;
+            this.goal = null;
+            this.fields = fields;
+        }
+
+        /**
+         * getAlgorithm
+         * @return the algorithm's code
+         */
+        public int getAlgorithm() {
+            return this.algorithm;
+        }
+
+        /**
+         * getRows
+         * @return the number of rows
+         */
+        public int getRows() {
+            return this.rows;
+        }
+
+        /**
+         * getColumns
+         * @return the number of columns
+         */
+        public int getColumns() {
+            return this.columns;
+        }
+
+        /**
+         * getTiles
+         * @return the initial state's tiles, row by row
+         */
+        public int[] getTiles() {
+            return this.tiles;
+        }
+
+        /**
+         * getGoal
+         * @return the goal state's tiles, or null for the standard goal
+         */
+        public int[] getGoal() {
+            return this.goal;
+        }
+
+        /**
+         * getFields
+         * @return the fields of a line that was not decoded, or null
+         */
+        public String[] getFields() {
+            return this.fields;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/**
+ * PuzzleValidator parses and checks a puzzle before it is searched: the number of tiles, that every tile from 0 to
+ * the number of cells - 1 appears exactly once, and that the permutation can reach the goal at all.
+ * Only half of the permutations can, and a search of one that can't would go over the whole other half (or
+ * forever, for IDS), so it is cheaper to count the inversions first.
+ */
+public class PuzzleValidator {
+
+    /**
+     * Parse checks a puzzle and parses it's tiles.
+     * @param shape - the board, with it's goal
+     * @param initState - the tiles row by row, seperated by '-'
+     * @return the tiles
+     * @throws InvalidPuzzleException if the puzzle is malformed or unsolvable
+     */
+    public static int[] Parse(Shape shape, String initState) {
+        int[] tiles = ParseTiles(shape, initState, false);
+        CheckParity(shape, tiles);
+        return tiles;
+    }
+
+    /**
+     * ParseGoal checks a goal state, any permutation of the tiles may be a goal.
+     * @param shape - the board
+     * @param goalState - the goal's tiles row by row, seperated by '-'
+     * @return the shape of the board with that goal
+     * @throws InvalidPuzzleException if the goal is malformed
+     */
+    public static Shape ParseGoal(Shape shape, String goalState) {
+        return shape.WithGoal(ParseTiles(shape, goalState, true));
+    }
+
+    /**
+     * Check checks tiles that were decoded without a string, like Parse checks a string.
+     * @param shape - the board, with it's goal
+     * @param tiles - the tiles row by row
+     * @throws InvalidPuzzleException if the puzzle is malformed or unsolvable
+     */
+    public static void Check(Shape shape, int[] tiles) {
+        CheckTiles(shape, tiles, false);
+        CheckParity(shape, tiles);
+    }
+
+    /**
+     * CheckGoal checks a goal state that was decoded without a string, like ParseGoal.
+     * @param shape - the board
+     * @param goal - the goal's tiles row by row
+     * @return the shape of the board with that goal
+     * @throws InvalidPuzzleException if the goal is malformed
+     */
+    public static Shape CheckGoal(Shape shape, int[] goal) {
+        CheckTiles(shape, goal, true);
+        return shape.WithGoal(goal);
+    }
+
+    /**
+     * ParseTiles checks the number of tiles, and that each of them appears once. The numbers are read from the
+     * string's characters, only a value that is not a plain number is parsed by Integer.parseInt, for it's error.
+     * @param shape - the board
+     * @param state - the tiles row by row, seperated by '-'
+     * @param goal - true if the state is the goal, so the errors say so
+     * @return the tiles
+     * @throws InvalidPuzzleException if the state is malformed
+     */
+    private static int[] ParseTiles(Shape shape, String state, boolean goal) {
+        int cells = shape.getCells();
+        String values = state == null ? "" : state.trim();
+        int count = Count(values);
+        if (count != cells)
+            throw new InvalidPuzzleException(InvalidPuzzleException.Reason.BAD_TILE_COUNT,
+                    "a " + shape.getRows() + "x" + shape.getColumns() + " board has " + cells
+                    + " tiles, the " + (goal ? "goal" : "state") + " has " + count);
+        int[] tiles = new int[cells];
+        boolean[] seen = new boolean[cells];
+        int start = 0;
+        for (int k = 0; k < cells; k++) {
+            int end = values.indexOf('-', start);
+            if (end < 0)
+                end = values.length();
+            int tile = Tile(values, start, end);
+            if (tile < 0) {
+                String value = values.substring(start, end);
+                try {
+                    tile = Integer.parseInt(value.trim());
+                } catch (NumberFormatException e) {
+                    throw new InvalidPuzzleException(InvalidPuzzleException.Reason.BAD_TILE,
+                            "'" + value + "' is not a tile" + Where(goal));
+                }
+            }
+            Mark(shape, seen, tile, goal);
+            tiles[k] = tile;
+            start = end + 1;
+        }
+        return tiles;
+    }
+
+    /**
+     * Count counts the values of a state the way String.split("-") does, without the empty values at the end.
+     * @param state - the trimmed state
+     * @return the number of values
+     */
+    private static int Count(String state) {
+        int end = state.length();
+        while (end > 0 && state.charAt(end - 1) == '-')
+            end--;
+        // a state of only '-' splits to nothing, an empty one to a single empty value
+        if (end == 0)
+            return state.isEmpty() ? 1 : 0;
+        int count = 1;
+        for (int i = 0; i < end; i++) {
+            if (state.charAt(i) == '-')
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Tile reads a value that is only digits, with spaces around them.
+     * @param state - the state
+     * @param start - the value's first character
+     * @param end - the character after the value
+     * @return the tile, or -1 if the value is anything else
+     */
+    private static int Tile(String state, int start, int end) {
+        while (start < end && state.charAt(start) == ' ')
+            start++;
+        while (end > start && state.charAt(end - 1) == ' ')
+            end--;
+        // longer numbers may overflow, Integer.parseInt decides about them
+        if (start == end || end - start > 9)
+            return -1;
+        int tile = 0;
+        for (int i = start; i < end; i++) {
+            char digit = state.charAt(i);
+            if (digit < '0' || digit > '9')
+                return -1;
+            tile = tile * 10 + digit - '0';
+        }
+        return tile;
+    }
+
+    /**
+     * CheckTiles checks the number of decoded tiles, and that each of them appears once.
+     * @param shape - the board
+     * @param tiles - the tiles row by row
+     * @param goal - true if the tiles are the goal's, so the errors say so
+     * @throws InvalidPuzzleException if the state is malformed
+     */
+    private static void CheckTiles(Shape shape, int[] tiles, boolean goal) {
+        int cells = shape.getCells();
+        if (tiles.length != cells)
+            throw new InvalidPuzzleException(InvalidPuzzleException.Reason.BAD_TILE_COUNT,
+                    "a " + shape.getRows() + "x" + shape.getColumns() + " board has " + cells
+                    + " tiles, the " + (goal ? "goal" : "state") + " has " + tiles.length);
+        boolean[] seen = new boolean[cells];
+        for (int tile : tiles)
+            Mark(shape, seen, tile, goal);
+    }
+
+    /**
+     * Mark checks that a tile is on the board and was not seen before, and marks it.
+     * @param shape - the board
+     * @param seen - the tiles that were seen
+     * @param tile - the tile
+     * @param goal - true if the tile is the goal's, so the errors say so
+     * @throws InvalidPuzzleException if the tile is out of range or a duplicate
+     */
+    private static void Mark(Shape shape, boolean[] seen, int tile, boolean goal) {
+        if (tile < 0 || tile >= shape.getCells())
+            throw new InvalidPuzzleException(InvalidPuzzleException.Reason.BAD_TILE,
+                    "the tiles must be between 0 and " + (shape.getCells() - 1) + ", there is a " + tile + Where(goal));
+        if (seen[tile])
+            throw new InvalidPuzzleException(InvalidPuzzleException.Reason.DUPLICATE_TILE,
+                    "the tile " + tile + " appears more than once" + Where(goal));
+        seen[tile] = true;
+    }
+
+    /**
+     * Where
+     * @param goal - true if an error is about the goal
+     * @return the end of the error's message, that says it is about the goal
+     */
+    private static String Where(boolean goal) {
+        return goal ? " in the goal" : "";
+    }
+
+    /**
+     * CheckParity checks that the goal can be reached from the tiles.
+     * @param shape - the board, with it's goal
+     * @param tiles - the tiles row by row
+     * @throws InvalidPuzzleException if the permutation is unsolvable
+     */
+    private static void CheckParity(Shape shape, int[] tiles) {
+        int[] goal = new int[tiles.length];
+        for (int cell = 0; cell < goal.length; cell++)
+            goal[cell] = shape.Goal(cell);
+        if (Parity(shape, tiles) != Parity(shape, goal))
+            throw new InvalidPuzzleException(InvalidPuzzleException.Reason.UNSOLVABLE,
+                    "the permutation has the wrong parity, the goal can't be reached from it");
+    }
+
+    /**
+     * Parity is the part of a state that no move changes. A horizontal move doesn't change the order of the tiles,
+     * and a vertical one moves a tile over the (columns - 1) tiles between, so on a board of odd columns the
+     * inversions' parity stays, and on a board of even columns the parity of the inversions plus the blank's row.
+     * @param shape - the board
+     * @param tiles - the tiles row by row
+     * @return 0 or 1, a state can reach another only if their parity is the same
+     */
+    public static int Parity(Shape shape, int[] tiles) {
+        int[] order = new int[tiles.length - 1];
+        int count = 0;
+        int blankRow = 0;
+        for (int k = 0; k < tiles.length; k++) {
+            if (tiles[k] == 0)
+                blankRow = k / shape.getColumns();
+            else
+                order[count++] = tiles[k];
+        }
+        long inversions = Inversions(order, new int[order.length], 0, order.length);
+        if (shape.getColumns() % 2 == 1)
+            return (int) (inversions % 2);
+        return (int) ((inversions + blankRow) % 2);
+    }
+
+    /**
+     * Inversions counts the pairs that are out of order with a merge sort, in O(n log n).
+     * @param values - the values, sorted in place
+     * @param buffer - a buffer as long as the values
+     * @param from - the first index
+     * @param to - the index after the last
+     * @return the number of inversions in the range
+     */
+    private static long Inversions(int[] values, int[] buffer, int from, int to) {
+        if (to - from < 2)
+            return 0;
+        int middle = (from + to) >>> 1;
+        long inversions = Inversions(values, buffer, from, middle) + Inversions(values, buffer, middle, to);
+        int left = from;
+        int right = middle;
+        int k = from;
+        while (left < middle && right < to) {
+            if (values[left] <= values[right]) {
+                buffer[k++] = values[left++];
+            } else {
+                // the right value is smaller than all the values left in the left half
+                inversions += middle - left;
+                buffer[k++] = values[right++];
+            }
+        }
+        while (left < middle)
+            buffer[k++] = values[left++];
+        while (right < to)
+            buffer[k++] = values[right++];
+        System.arraycopy(buffer, from, values, from, to - from);
+        return inversions;
+    }
+}
@@ -0,0 +1,164 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * ResultWriter writes the results of a batch to a file through a direct buffer, that is written to the file's
+ * channel whenever it is full, so the results are not copied to a String, a char buffer and a byte array first.
+ * A text file has a line for every puzzle: the track, the developed nodes and the cost, or "error: " and what
+ * stopped the puzzle.
+ * A binary file starts with the magic number, followed by a record of every puzzle: 0 for a result, it's cost
+ * (-1 if there is no solution) as an int, the developed nodes as a long and the track's length as an int followed
+ * by the moves, a byte each, or 1 for an error, followed by the length of the message as an int and it's UTF-8
+ * bytes. The numbers are big-endian, like DataOutputStream writes them.
+ */
+public class ResultWriter implements Closeable {
+
+    /**
+     * the first 4 bytes of a binary results file, "RSL1".
+     */
+    public static final int MAGIC = 0x52534C31;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ERROR = "error: ".getBytes(StandardCharsets.US_ASCII);
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final boolean binary;
+
+    /**
+     * Constructor, creates the file or replaces it.
+     * @param path - the results file
+     * @param binary - true for the binary format, false for text lines
+     * @throws IOException if the file can't be opened
+     */
+    public ResultWriter(Path path, boolean binary) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.binary = binary;
+        if (binary)
+            this.buffer.putInt(MAGIC);
+    }
+
+    /**
+     * Write writes a puzzle's result.
+     * @param result - the output line: the track, the developed nodes and the cost, seperated by spaces
+     * @throws IOException if the file can't be written
+     */
+    public void Write(String result) throws IOException {
+        if (!this.binary) {
+            Put(result, 0, result.length());
+            Put(LINE_SEPARATOR);
+            return;
+        }
+        // the numbers are after the last two spaces, the track is before them
+        int costStart = result.lastIndexOf(' ') + 1;
+        int nodesStart = result.lastIndexOf(' ', costStart - 2) + 1;
+        Reserve(17);
+        this.buffer.put((byte) 0);
+        this.buffer.putInt(Integer.parseInt(result, costStart, result.length(), 10));
+        this.buffer.putLong(Long.parseLong(result, nodesStart, costStart - 1, 10));
+        this.buffer.putInt(nodesStart - 1);
+        Put(result, 0, nodesStart - 1);
+    }
+
+    /**
+     * WriteError writes the error that stopped a puzzle.
+     * @param message - what went wrong
+     * @throws IOException if the file can't be written
+     */
+    public void WriteError(String message) throws IOException {
+        if (!this.binary) {
+            Put(ERROR);
+            String text = String.valueOf(message);
+            Put(text, 0, text.length());
+            Put(LINE_SEPARATOR);
+            return;
+        }
+        byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        Reserve(5);
+        this.buffer.put((byte) 1);
+        this.buffer.putInt(bytes.length);
+        Put(bytes);
+    }
+
+    /**
+     * Put writes characters of a text, a byte each while they are ASCII, like a writer of the default charset.
+     * @param text - the text
+     * @param from - the first character
+     * @param to - the character after the last one
+     * @throws IOException if the file can't be written
+     */
+    private void Put(String text, int from, int to) throws IOException {
+        if (to - from > BUFFER_SIZE) {
+            Put(text.substring(from, to).getBytes(Charset.defaultCharset()));
+            return;
+        }
+        Reserve(to - from);
+        // the characters are put at their offsets, the position is moved once
+        int position = this.buffer.position() - from;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                // a message may quote anything from the input
+                this.buffer.position(position + i);
+                Put(text.substring(i, to).getBytes(Charset.defaultCharset()));
+                return;
+            }
+            this.buffer.put(position + i, (byte) c);
+        }
+        this.buffer.position(position + to);
+    }
+
+    /**
+     * Put writes bytes.
+     * @param bytes - the bytes
+     * @throws IOException if the file can't be written
+     */
+    private void Put(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            Reserve(1);
+            int length = Math.min(bytes.length - offset, this.buffer.remaining());
+            this.buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Reserve makes room in the buffer, writing it to the file if it doesn't have it.
+     * @param length - the number of bytes, at most the buffer's size
+     * @throws IOException if the file can't be written
+     */
+    private void Reserve(int length) throws IOException {
+        if (this.buffer.remaining() < length)
+            Flush();
+    }
+
+    /**
+     * Flush writes the buffer to the file.
+     * @throws IOException if the file can't be written
+     */
+    public void Flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining())
+            this.channel.write(this.buffer);
+        this.buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            Flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+}
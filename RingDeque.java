@@ -0,0 +1,60 @@
+/**
+ * RingDeque is a first in, first out open list, kept in a circular array that doubles when it is full.
+ * Unlike a LinkedList it allocates nothing per node.
+ */
+public class RingDeque implements Frontier {
+
+    private Node[] nodes;
+    private int head;
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    public RingDeque() {
+        this.nodes = new Node[16];
+        this.head = 0;
+        this.size = 0;
+    }
+
+    @Override
+    public void Add(Node node) {
+        if (this.size == this.nodes.length)
+            Grow();
+        this.nodes[(this.head + this.size) & (this.nodes.length - 1)] = node;
+        this.size++;
+    }
+
+    @Override
+    public Node Remove() {
+        Node node = this.nodes[this.head];
+        // let the node be collected once the search is done with it
+        this.nodes[this.head] = null;
+        this.head = (this.head + 1) & (this.nodes.length - 1);
+        this.size--;
+        return node;
+    }
+
+    @Override
+    public boolean IsEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int Size() {
+        return this.size;
+    }
+
+    /**
+     * Grow doubles the array, moving the nodes to it's start in their order.
+     */
+    private void Grow() {
+        Node[] old = this.nodes;
+        this.nodes = new Node[old.length * 2];
+        // the array is full, so the nodes run from the head to the end and wrap around to the head
+        int first = old.length - this.head;
+        System.arraycopy(old, this.head, this.nodes, 0, first);
+        System.arraycopy(old, 0, this.nodes, first, this.head);
+        this.head = 0;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * SearchBuffers are the arena, the open lists and the closed list of the searches of the packed states. Every
+ * thread keeps it's own buffers and reuses them from search to search, so the solver service (and the batch)
+ * doesn't allocate and grow them again for every puzzle. The buffers of a search that grew over a bound are not
+ * kept, so a single huge search doesn't hold it's memory after it is over.
+ */
+public final class SearchBuffers {
+
+    // the most nodes (or closed states) of the buffers that are kept for the next search
+    private static final int MAX_KEPT = 1 << 21;
+
+    private static final ThreadLocal<SearchBuffers> kept = new ThreadLocal<SearchBuffers>();
+
+    private final NodeArena arena;
+    private final LongHashSet closedList;
+    private final IntQueue queue;
+    private IntBucketQueue buckets;
+    private boolean inUse;
+
+    /**
+     * Constructor.
+     */
+    private SearchBuffers() {
+        this.arena = new NodeArena();
+        this.closedList = new LongHashSet();
+        this.queue = new IntQueue();
+        this.inUse = false;
+    }
+
+    /**
+     * Acquire takes the thread's buffers, empty. A search that runs while another one of the same thread holds
+     * them gets buffers of it's own.
+     * @return the buffers
+     */
+    public static SearchBuffers Acquire() {
+        SearchBuffers buffers = kept.get();
+        if (buffers == null) {
+            buffers = new SearchBuffers();
+            kept.set(buffers);
+        } else if (buffers.inUse) {
+            buffers = new SearchBuffers();
+        }
+        buffers.inUse = true;
+        buffers.arena.Clear();
+        buffers.closedList.Clear();
+        buffers.queue.Clear();
+        if (buffers.buckets != null)
+            buffers.buckets.Clear();
+        return buffers;
+    }
+
+    /**
+     * Release gives the buffers back to the thread, or drops them if they grew too much.
+     */
+    public void Release() {
+        this.inUse = false;
+        if (kept.get() == this && (this.arena.Size() > MAX_KEPT || this.closedList.Size() > MAX_KEPT))
+            kept.remove();
+    }
+
+    /**
+     * getArena
+     * @return the search tree
+     */
+    public NodeArena getArena() {
+        return this.arena;
+    }
+
+    /**
+     * getClosedList
+     * @return the set of the developed states
+     */
+    public LongHashSet getClosedList() {
+        return this.closedList;
+    }
+
+    /**
+     * getQueue
+     * @return the first in, first out open list
+     */
+    public IntQueue getQueue() {
+        return this.queue;
+    }
+
+    /**
+     * getBuckets
+     * @param policy - the order of the nodes of the same estimate
+     * @return the open list of A*, kept for the next search of the same policy
+     */
+    public IntBucketQueue getBuckets(TieBreaking policy) {
+        if (this.buckets == null || this.buckets.getPolicy() != policy)
+            this.buckets = new IntBucketQueue(policy);
+        return this.buckets;
+    }
+}
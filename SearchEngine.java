@@ -4,38 +4,107 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.management.JMException;
 
 /**
  * The SearchEngine gets an unsolved puzzel and solves it, using the requested algorithm.
  * It holds a solver - Algorithm, and String representations of the input and output files.
+ * In batch mode it solves a file of many puzzles at once, on all the cores.
  */
 public class SearchEngine {
+
+    // the tie breaking of A*, chosen with -Dsearch.tiebreaking=fifo, lifo, h-fifo or h-lifo
+    private static final TieBreaking TIE_BREAKING = TieBreaking.Parse(System.getProperty("search.tiebreaking", "fifo"));
+    // the highest algorithm's code
+    private static final int ALGORITHMS = 9;
     
     private Algorithm solver;
+    private Heuristic heuristic;
     private final String input;
     private final String output;
+    private int algorithmId;
+    private Shape shape;
+    private int[] tiles;
+    private String heuristicName;
+    private String result;
+    private final SolutionCache cache;
     
     /**
-     * Constructor.
+     * Constructor. The solved puzzles are cached with -Dsearch.cache=(store file),
+     * -Dsearch.cache.size=(results) bounds the results that are kept in memory, and -Dsearch.cache.symmetry=true
+     * answers puzzles with the mirrored results of their transposes, whose tracks and developed nodes may differ
+     * from a search of their own.
      */
     public SearchEngine() {
         this.input = "input.txt";
         this.output = "output.txt";
+        this.cache = OpenCache(System.getProperty("search.cache"), Integer.getInteger("search.cache.size", 100000),
+                Boolean.getBoolean("search.cache.symmetry"));
+    }
+
+    /**
+     * OpenCache opens the solution cache.
+     * @param store - the cache's store file, or null for no cache
+     * @param capacity - the most results to keep in memory
+     * @param symmetry - true to answer puzzles with the results of their transposes
+     * @return the cache, or null if there is none
+     */
+    private static SolutionCache OpenCache(String store, int capacity, boolean symmetry) {
+        if (store == null)
+            return null;
+        try {
+            return new SolutionCache(capacity, Path.of(store), symmetry);
+        } catch (IOException e) {
+            // the puzzles can still be solved without it
+            e.printStackTrace();
+            return null;
+        }
     }
     
     /**
      * Initialize reads the data from the input text file and initializes the solver.
      * the excercise defined the input file to be:
-     * first row: algorithm's code. 1 - BFS, 2 - IDS, 3 - A star.
-     * second row: size of board
+     * first row: algorithm's code. 1 - IDS, 2 - BFS, 3 - A star, 4 - IDA star, 5 - parallel A star,
+     * 6 - bidirectional BFS, 7 - external memory BFS, 8 - anytime weighted A star, 9 - descent of the 3x3 board's
+     * distance table, which is kept in -Dsearch.table=(file, table3.bin by default) and built if it does not exist.
+     * A star keeps at most -Dsearch.astar.nodes=(nodes) in memory if it is set, forgetting the worst leaves (SMA*).
+     * IDS keeps it's last layer with -Dsearch.ids.frontier=memory or disk (in -Dsearch.ids.dir), up to
+     * -Dsearch.ids.frontier.max=(paths), and remembers -Dsearch.ids.table=(states) in it's transposition table.
+     * the anytime A star starts with the weight -Dsearch.weight=(2 by default), lowers it by
+     * -Dsearch.weight.step=(0.5 by default, 0 for a single weighted search) after every solution, and stops with
+     * it's best solution after -Dsearch.deadline=(milliseconds) or -Dsearch.budget=(developed nodes).
+     * second row: size of board, a number for a square board or the rows and the columns, as 2x4.
      * third row: the initial state as one string, the numbers seperated by '-'.
+     * an optional fourth row chooses the heuristic of the informed searches: manhattan (the default), linear,
+     * walking (the walking distance, for boards of up to 4 rows and columns) or pdb followed by the pattern
+     * database's file (which is built if it does not exist yet).
+     * an optional fifth row is the goal state, in the same form as the initial state. the tiles in order with the
+     * 0 last are the goal if it is missing.
      */
     public void Initialize() {
         BufferedReader reader = null; 
         try {
             // read data from input file and get the right algorithm as solver.
             reader = new BufferedReader(new FileReader(new File(this.input)));
-            GetSolver(reader.readLine(), reader.readLine(), reader.readLine());
+            String algorithm = reader.readLine();
+            String size = reader.readLine();
+            String initState = reader.readLine();
+            String heuristicName = reader.readLine();
+            GetSolver(algorithm, size, initState, reader.readLine());
+            GetHeuristic(heuristicName, this.shape);
+        } catch (IllegalArgumentException e) {
+            // a malformed or unsolvable puzzle is not searched, it's error is the output
+            this.solver = null;
+            this.result = "error: " + e.getMessage();
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
@@ -49,24 +118,220 @@ public class SearchEngine {
     }
 
     /**
-     * GetSolver chooses the matching algorithm as solver, and initialize it with the size and initState.
+     * GetSolver chooses the matching algorithm as solver, and initialize it with the board and initState.
      * @param algorithm - string to interpret
      * @param size - string to interpret
      * @param initState - string to interpret
+     * @param goal - string to interpret, or null for the standard goal
+     */
+    private void GetSolver(String algorithm, String size, String initState, String goal) {
+        this.algorithmId = ParseAlgorithm(algorithm);
+        this.shape = ParseShape(size, goal);
+        // an unknown code is the error, even if the state is malformed too
+        if (!IsAlgorithm(this.algorithmId))
+            throw new IllegalArgumentException("unknown algorithm " + this.algorithmId);
+        this.tiles = PuzzleValidator.Parse(this.shape, initState);
+        this.solver = CreateSolver(this.algorithmId, this.shape, this.tiles);
+    }
+
+    /**
+     * ParseAlgorithm parses the algorithm's code.
+     * @param value - the code as a string
+     * @return the code
+     */
+    private static int ParseAlgorithm(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException("the algorithm must be a number, it is '" + value + "'");
+        }
+    }
+
+    /**
+     * ParseShape parses the board and it's goal.
+     * @param size - a number for a square board, or the rows and the columns, as 2x4
+     * @param goal - the goal state as one string, or null (or empty) for the standard goal
+     * @return the shape
+     * @throws InvalidPuzzleException if the size or the goal are malformed
+     */
+    private static Shape ParseShape(String size, String goal) {
+        Shape shape = Shape.Parse(size);
+        if (goal == null || goal.trim().isEmpty())
+            return shape;
+        return PuzzleValidator.ParseGoal(shape, goal);
+    }
+
+    /**
+     * CreateSolver creates the algorithm of the given code, for a square board with the standard goal.
+     * @param id - the algorithm's code
+     * @param boardSize - the board size
+     * @param initState - the initial state as one string
+     * @return the algorithm, or null if there is no algorithm with that code
+     * @throws InvalidPuzzleException if the puzzle is malformed or unsolvable
+     */
+    public static Algorithm CreateSolver(int id, int boardSize, String initState) {
+        return CreateSolver(id, Shape.Square(boardSize), initState);
+    }
+
+    /**
+     * CreateSolver creates the algorithm of the given code.
+     * @param id - the algorithm's code
+     * @param shape - the board, with it's goal
+     * @param initState - the initial state as one string
+     * @return the algorithm, or null if there is no algorithm with that code
+     * @throws InvalidPuzzleException if the puzzle is malformed or unsolvable
+     */
+    public static Algorithm CreateSolver(int id, Shape shape, String initState) {
+        // an unknown code is the error, even if the state is malformed too
+        if (!IsAlgorithm(id))
+            return null;
+        return CreateSolver(id, shape, PuzzleValidator.Parse(shape, initState));
+    }
+
+    /**
+     * IsAlgorithm
+     * @param id - an algorithm's code
+     * @return true if there is an algorithm with that code
+     */
+    private static boolean IsAlgorithm(int id) {
+        return id >= 1 && id <= ALGORITHMS;
+    }
+
+    /**
+     * CreateSolver creates the algorithm of the given code, for a puzzle that was decoded without a string.
+     * @param id - the algorithm's code
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     * @return the algorithm, or null if there is no algorithm with that code
+     * @throws InvalidPuzzleException if the puzzle is malformed or unsolvable
      */
-    private void GetSolver(String algorithm, String size, String initState) {
-        int id = Integer.parseInt(algorithm);
-        int boardSize = Integer.parseInt(size);
-        if (id == 1) this.solver = new IDS(boardSize, initState);
-        if (id == 2) this.solver = new BFS(boardSize, initState);
-        if (id == 3) this.solver = new AStar(boardSize, initState);
+    public static Algorithm CreateSolver(int id, Shape shape, int[] tiles) {
+        if (id == 1) return new IDS(shape, tiles,
+                IDS.FrontierMode.valueOf(System.getProperty("search.ids.frontier", "none").toUpperCase()),
+                Path.of(System.getProperty("search.ids.dir", System.getProperty("java.io.tmpdir"))),
+                Integer.getInteger("search.ids.table", 1 << 20),
+                Integer.getInteger("search.ids.frontier.max", 1 << 22));
+        if (id == 2) return new BFS(shape, tiles);
+        int nodes = Integer.getInteger("search.astar.nodes", 0);
+        if (id == 3 && nodes > 0) return new MemoryBoundedAStar(shape, tiles, nodes);
+        if (id == 3) return new AStar(shape, tiles, TIE_BREAKING);
+        if (id == 4) return new IDAStar(shape, tiles);
+        if (id == 5) return new ParallelAStar(shape, tiles, Runtime.getRuntime().availableProcessors());
+        if (id == 6) return new BidirectionalBFS(shape, tiles);
+        if (id == 7) return new ExternalBFS(shape, tiles, Path.of(System.getProperty("java.io.tmpdir")),
+                ExternalBFS.DEFAULT_MEMORY);
+        if (id == 8) return new AnytimeAStar(shape, tiles,
+                Double.parseDouble(System.getProperty("search.weight", "2")),
+                Double.parseDouble(System.getProperty("search.weight.step", "0.5")),
+                Long.getLong("search.deadline", 0L), Long.getLong("search.budget", 0L));
+        if (id == 9) return new TableDescent(shape, tiles, System.getProperty("search.table", "table3.bin"));
+        return null;
     }
 
     /**
-     * Solve calls the algorithm's search method with the board's moves logic.
+     * GetHeuristic chooses the heuristic function of the informed searches.
+     * @param name - manhattan, linear, walking or pdb and a file, Manhattan's distance if it is missing
+     * @param shape - the board, for the pattern database and the walking distance
+     */
+    private void GetHeuristic(String name, Shape shape) {
+        this.heuristicName = name;
+        this.heuristic = CreateHeuristic(name, shape);
+    }
+
+    /**
+     * CreateHeuristic creates the heuristic function of the given name.
+     * @param name - manhattan, linear, walking or pdb and a file, Manhattan's distance if it is missing
+     * @param shape - the board, for the pattern database and the walking distance
+     * @return the heuristic function
+     */
+    private static Heuristic CreateHeuristic(String name, Shape shape) {
+        if (name == null)
+            return new Manhattan();
+        String[] words = name.trim().split("\\s+");
+        if (words[0].equals("linear"))
+            return new LinearConflict();
+        if (words[0].equals("walking") && WalkingDistance.Fits(shape))
+            return new WalkingDistance(shape);
+        if (words[0].equals("walking")) {
+            // the linear conflicts are the closest estimate of the bigger boards
+            System.err.println("no walking distance for " + shape + ", using the linear conflicts");
+            return new LinearConflict();
+        }
+        if (words[0].equals("pdb") && !(shape.IsSquare() && shape.IsStandard())) {
+            // the databases are built for the standard goal of a square board
+            System.err.println("no pattern database for " + shape + ", using Manhattan's distance");
+        } else if (words[0].equals("pdb")) {
+            String path = words.length > 1 ? words[1] : "pdb" + shape.getRows() + ".bin";
+            try {
+                return PatternDatabase.Open(path, shape.getRows());
+            } catch (IOException e) {
+                // the search can still go on with Manhattan's distance
+                e.printStackTrace();
+            }
+        }
+        return new Manhattan();
+    }
+
+    /**
+     * Solve calls the algorithm's search method with the board's moves logic, unless the puzzle's result is cached.
+     * The search's metrics are printed every few seconds with -Dsearch.progress=(seconds), and are exposed
+     * over JMX with -Dsearch.jmx=true.
      */
     public void Solve() {
-        this.solver.Search(new MovesLogic());
+        // the puzzle was rejected before the search
+        if (this.solver == null)
+            return;
+        if (this.solver instanceof AnytimeAStar) {
+            // the better solutions are printed as they are found, the output file gets the last one
+            ((AnytimeAStar) this.solver).setListener((track, cost, weight, elapsedNanos) ->
+                    System.err.printf("solution of cost %d, weight %.1f, after %.3f seconds: %s%n",
+                            cost, weight, elapsedNanos / 1e9, track));
+        }
+        if (this.cache != null) {
+            this.result = this.cache.Get(this.algorithmId, Settings(this.algorithmId),
+                    HeuristicKey(this.heuristicName), this.shape, this.tiles);
+            if (this.result != null)
+                return;
+        }
+        try {
+            this.result = Result(this.solver, Search());
+        } catch (IllegalStateException e) {
+            // a bounded search that ran out is reported like the other failures, and is not cached
+            this.result = "error: " + e.getMessage();
+            return;
+        }
+        if (this.cache != null)
+            this.cache.Put(this.algorithmId, Settings(this.algorithmId), HeuristicKey(this.heuristicName),
+                    this.shape, this.tiles, this.result);
+    }
+
+    /**
+     * Search runs the solver's search, with the metrics' progress log and JMX bean if they were asked for.
+     * @return the goal state, or null if the search ended without a solution
+     */
+    private Node Search() {
+        SearchMetrics metrics = this.solver.getMetrics();
+        if (Boolean.getBoolean("search.jmx")) {
+            try {
+                metrics.Register("search");
+            } catch (JMException e) {
+                // the search doesn't need the bean
+                e.printStackTrace();
+            }
+        }
+        double progress = Double.parseDouble(System.getProperty("search.progress", "0"));
+        if (progress <= 0)
+            return this.solver.Search(new MovesLogic(this.heuristic));
+        Node goal;
+        // closed explicitly, the body never references the log
+        ProgressLog log = new ProgressLog(metrics, (long) (progress * 1000), System.err);
+        try {
+            goal = this.solver.Search(new MovesLogic(this.heuristic));
+        } finally {
+            log.close();
+        }
+        System.err.println("done: " + metrics);
+        return goal;
     }
     
     /**
@@ -76,11 +341,7 @@ public class SearchEngine {
         BufferedWriter writer = null;
         try {
             writer = new BufferedWriter(new FileWriter(this.output));
-            // it writes the solution track, the number of developed nodes and the solution cost.
-            writer.write(
-                    this.solver.SolutionTrack() + " "
-                    + solver.DevelopedNodesCount() + " "
-                    + solver.Cost());
+            writer.write(this.result);
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
@@ -91,4 +352,311 @@ public class SearchEngine {
             }
         }
     }
+
+    /**
+     * Result is the output of a solved puzzle: the solution track, the number of developed nodes and the solution cost.
+     * @param solver - the algorithm, after it's search
+     * @param goal - the goal state the search returned
+     * @return the output line
+     * @throws IllegalStateException if the search ended without a solution, with the reason
+     */
+    private static String Result(Algorithm solver, Node goal) {
+        if (goal == null)
+            throw new IllegalStateException(solver.NoSolution());
+        return solver.SolutionTrack() + " " + solver.DevelopedNodesCount() + " " + solver.Cost();
+    }
+
+    /**
+     * Close closes the solution cache's store.
+     */
+    public void Close() {
+        if (this.cache == null)
+            return;
+        try {
+            this.cache.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * HeuristicKey is the heuristic's name as it is kept in the cache, the pattern database's file doesn't change
+     * the result.
+     * @param name - the heuristic's name as in the input file
+     * @return manhattan, linear, walking or pdb
+     */
+    private static String HeuristicKey(String name) {
+        if (name == null || name.trim().isEmpty())
+            return "manhattan";
+        return name.trim().split("\\s+")[0];
+    }
+
+    /**
+     * Settings are the system properties that change the result of an algorithm, as CreateSolver reads them,
+     * for the cache's key.
+     * @param id - the algorithm's code
+     * @return the settings that are not the defaults, seperated by commas, or an empty string
+     */
+    private static String Settings(int id) {
+        StringBuilder settings = new StringBuilder();
+        if (id == 1) {
+            // the layers' directory doesn't change the result
+            String frontier = System.getProperty("search.ids.frontier", "none").toLowerCase();
+            int table = Integer.getInteger("search.ids.table", 1 << 20);
+            int frontierMax = Integer.getInteger("search.ids.frontier.max", 1 << 22);
+            if (!frontier.equals("none"))
+                Setting(settings, "frontier", frontier);
+            if (table != 1 << 20)
+                Setting(settings, "table", table);
+            if (frontierMax != 1 << 22)
+                Setting(settings, "frontier.max", frontierMax);
+        }
+        int nodes = Integer.getInteger("search.astar.nodes", 0);
+        // the memory-bounded A* breaks the ties by FIFO
+        if (id == 3 && nodes > 0)
+            Setting(settings, "nodes", nodes);
+        else if (id == 3 && TIE_BREAKING != TieBreaking.FIFO)
+            Setting(settings, "tiebreaking", TIE_BREAKING.name().toLowerCase());
+        if (id == 8) {
+            double weight = Double.parseDouble(System.getProperty("search.weight", "2"));
+            double step = Double.parseDouble(System.getProperty("search.weight.step", "0.5"));
+            long deadline = Long.getLong("search.deadline", 0L);
+            long budget = Long.getLong("search.budget", 0L);
+            if (weight != 2)
+                Setting(settings, "weight", weight);
+            if (step != 0.5)
+                Setting(settings, "step", step);
+            if (deadline != 0)
+                Setting(settings, "deadline", deadline);
+            if (budget != 0)
+                Setting(settings, "budget", budget);
+        }
+        return settings.toString();
+    }
+
+    /**
+     * Setting adds a setting to the cache's key.
+     * @param settings - the settings so far
+     * @param name - the setting's name
+     * @param value - it's value
+     */
+    private static void Setting(StringBuilder settings, String name, Object value) {
+        if (settings.length() > 0)
+            settings.append(',');
+        settings.append(name).append('=').append(value);
+    }
+
+    /**
+     * SolveBatch solves many puzzles, one per line of the input file, each line holding the algorithm's code,
+     * the board size, the initial state and an optional goal state, seperated by spaces. The puzzles are solved
+     * concurrently on a work-stealing pool with a thread for every core, and their results are written in the
+     * input's order, as soon as all the puzzles before them are solved. The throughput is printed at the end.
+     * The puzzles are decoded straight from the file's bytes by a PuzzleReader, and the results are written by a
+     * ResultWriter. -Dbatch.input=binary and -Dbatch.output=binary switch the files to their binary formats.
+     * @param batchInput - the puzzles file
+     * @param batchOutput - the results file
+     * @param heuristicName - the heuristic of the informed searches, as in the input file's fourth row
+     */
+    public void SolveBatch(String batchInput, String batchOutput, String heuristicName) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        // the heuristics are shared by all the puzzles of a board, a pattern database is loaded only once
+        Map<String, Heuristic> heuristics = new ConcurrentHashMap<String, Heuristic>();
+        // the results that are not written yet, in the input's order. bounding them bounds the memory.
+        Queue<Future<String>> pending = new ArrayDeque<Future<String>>();
+        int maxPending = threads * 16;
+        long start = System.nanoTime();
+        int solved = 0;
+        try (PuzzleReader reader = new PuzzleReader(Path.of(batchInput),
+                "binary".equals(System.getProperty("batch.input")));
+                ResultWriter writer = new ResultWriter(Path.of(batchOutput),
+                        "binary".equals(System.getProperty("batch.output")))) {
+            PuzzleReader.Puzzle puzzle;
+            while ((puzzle = reader.Next()) != null) {
+                PuzzleReader.Puzzle next = puzzle;
+                pending.add(pool.submit(() -> SolvePuzzle(next, heuristics, heuristicName, this.cache)));
+                if (pending.size() >= maxPending) {
+                    WriteResult(writer, pending.remove());
+                    solved++;
+                }
+            }
+            while (!pending.isEmpty()) {
+                WriteResult(writer, pending.remove());
+                solved++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("solved %d puzzles in %.3f seconds, %.1f puzzles per second%n",
+                solved, seconds, solved / seconds);
+    }
+
+    /**
+     * Serve keeps the solver resident and answers puzzles, one per line in the batch's form, until it is stopped.
+     * Every thread of it's pool first solves -Dservice.warmup=(puzzles) random puzzles per algorithm, 200 unless
+     * it is 0, so the searches are compiled and the threads' buffers allocated before the first request.
+     * @param port - the local port to listen on, or null to answer the standard input on the standard output
+     * @param heuristicName - the heuristic of the informed searches, as in the input file's fourth row
+     */
+    public void Serve(Integer port, String heuristicName) {
+        SolverService service = new SolverService(this.cache, heuristicName);
+        int warmup = Integer.getInteger("service.warmup", 200);
+        if (warmup > 0)
+            service.WarmUp(warmup);
+        if (port == null)
+            service.Serve();
+        else
+            service.Serve(port);
+    }
+
+    /**
+     * Histogram counts the states of a board by the length of their optimal solution, with the external
+     * memory BFS from the goal state, and prints a line of the depth and the count for every depth.
+     * @param size - the board size, a number or the rows and the columns as 2x4, of up to 16 cells
+     * @param directory - the directory to write the layers in, or null for the temporary directory
+     */
+    public void Histogram(String size, String directory) {
+        Shape shape = Shape.Parse(size);
+        int[] goal = new int[shape.getCells()];
+        for (int k = 0; k < goal.length; k++)
+            goal[k] = shape.Goal(k);
+        Path layers = Path.of(directory == null ? System.getProperty("java.io.tmpdir") : directory);
+        ExternalBFS enumerator = new ExternalBFS(shape, goal, layers, ExternalBFS.DEFAULT_MEMORY);
+        try {
+            long[] histogram = enumerator.Histogram();
+            long total = 0;
+            for (int depth = 0; depth < histogram.length; depth++) {
+                System.out.println(depth + " " + histogram[depth]);
+                total += histogram[depth];
+            }
+            System.out.println("total " + total + ", " + enumerator.getMetrics());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * SolveLine solves a single puzzle of the batch, with it's own moves logic.
+     * @param fields - the algorithm's code, the board size, the initial state and an optional goal state
+     * @param heuristics - the heuristic of each board
+     * @param heuristicName - the heuristic's name
+     * @param cache - the solution cache, or null
+     * @return the result line
+     */
+    static String SolveLine(String[] fields, Map<String, Heuristic> heuristics, String heuristicName,
+            SolutionCache cache) {
+        if (fields.length < 3)
+            throw new IllegalArgumentException("a line needs the algorithm, the board size and the state");
+        if (fields.length > 4)
+            throw new IllegalArgumentException("a line has the algorithm, the board size, the state and an optional "
+                    + "goal, it has " + fields.length + " fields");
+        int id = ParseAlgorithm(fields[0]);
+        Shape shape = ParseShape(fields[1], fields.length > 3 ? fields[3] : null);
+        if (!IsAlgorithm(id))
+            throw new IllegalArgumentException("unknown algorithm " + fields[0]);
+        // the solver checks the puzzle, even before the cache is looked at
+        int[] tiles = PuzzleValidator.Parse(shape, fields[2]);
+        Algorithm batchSolver = CreateSolver(id, shape, tiles);
+        return SolveCached(batchSolver, id, shape, tiles, heuristics, heuristicName, cache);
+    }
+
+    /**
+     * SolvePuzzle solves a puzzle that the batch's reader decoded, or the fields of a line it left as a string.
+     * @param puzzle - the puzzle
+     * @param heuristics - the heuristic of each board
+     * @param heuristicName - the heuristic's name
+     * @param cache - the solution cache, or null
+     * @return the result line
+     */
+    static String SolvePuzzle(PuzzleReader.Puzzle puzzle, Map<String, Heuristic> heuristics, String heuristicName,
+            SolutionCache cache) {
+        if (puzzle.getFields() != null)
+            return SolveLine(puzzle.getFields(), heuristics, heuristicName, cache);
+        Shape shape = Shape.Of(puzzle.getRows(), puzzle.getColumns());
+        if (puzzle.getGoal() != null)
+            shape = PuzzleValidator.CheckGoal(shape, puzzle.getGoal());
+        Algorithm batchSolver = CreateSolver(puzzle.getAlgorithm(), shape, puzzle.getTiles());
+        if (batchSolver == null)
+            throw new IllegalArgumentException("unknown algorithm " + puzzle.getAlgorithm());
+        return SolveCached(batchSolver, puzzle.getAlgorithm(), shape, puzzle.getTiles(), heuristics, heuristicName,
+                cache);
+    }
+
+    /**
+     * SolveCached searches a puzzle of the batch with the board's shared heuristic, unless it's result is cached.
+     * @param batchSolver - the puzzle's algorithm
+     * @param id - the algorithm's code
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     * @param heuristics - the heuristic of each board
+     * @param heuristicName - the heuristic's name
+     * @param cache - the solution cache, or null
+     * @return the result line
+     */
+    private static String SolveCached(Algorithm batchSolver, int id, Shape shape, int[] tiles,
+            Map<String, Heuristic> heuristics, String heuristicName, SolutionCache cache) {
+        if (cache != null) {
+            String cached = cache.Get(id, Settings(id), HeuristicKey(heuristicName), shape, tiles);
+            if (cached != null)
+                return cached;
+        }
+        Heuristic batchHeuristic = heuristics.computeIfAbsent(shape.toString(),
+                key -> CreateHeuristic(heuristicName, shape));
+        String result = Result(batchSolver, batchSolver.Search(new MovesLogic(batchHeuristic)));
+        if (cache != null)
+            cache.Put(id, Settings(id), HeuristicKey(heuristicName), shape, tiles, result);
+        return result;
+    }
+
+    /**
+     * WriteResult waits for a puzzle to be solved and writes it's result, or the error that stopped it's search.
+     * @param writer - the results file
+     * @param result - the puzzle's result
+     * @throws IOException if the file can't be written
+     */
+    static void WriteResult(BufferedWriter writer, Future<String> result) throws IOException {
+        try {
+            writer.write(result.get());
+        } catch (ExecutionException e) {
+            writer.write("error: " + Cause(e).getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for a result", e);
+        }
+        writer.newLine();
+    }
+
+    /**
+     * WriteResult waits for a puzzle of the batch to be solved and writes it's result, or the error that stopped
+     * it's search.
+     * @param writer - the results file
+     * @param result - the puzzle's result
+     * @throws IOException if the file can't be written
+     */
+    static void WriteResult(ResultWriter writer, Future<String> result) throws IOException {
+        try {
+            writer.Write(result.get());
+        } catch (ExecutionException e) {
+            writer.WriteError(Cause(e).getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for a result", e);
+        }
+    }
+
+    /**
+     * Cause finds the exception that stopped a puzzle.
+     * @param e - the exception of the puzzle's future
+     * @return the original exception, which says what went wrong
+     */
+    private static Throwable Cause(ExecutionException e) {
+        // the pool may wrap the search's exception
+        Throwable cause = e.getCause();
+        while (cause.getCause() != null)
+            cause = cause.getCause();
+        return cause;
+    }
 }
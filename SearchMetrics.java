@@ -0,0 +1,304 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * SearchMetrics holds the statistics of a single search: the generated and the developed (expanded) nodes, the
+ * duplicates that were pruned, the peak sizes of the open and closed lists, the heuristic evaluations and the
+ * time of every iteration of the iterative searches. All the counters are longs, so they don't overflow on long
+ * searches.
+ * The search writes the counters from a single thread without synchronization, so the readers of other threads
+ * (the progress log, JMX) may see values that are slightly behind. A parallel search gives every thread a part of
+ * it's own, and the getters sum the parts.
+ */
+public class SearchMetrics implements SearchMetricsMXBean {
+
+    private long generated;
+    private long expanded;
+    private long duplicates;
+    private long peakFrontier;
+    private long peakClosed;
+    private long evaluations;
+    private volatile long start;
+    private volatile long finish;
+    private final List<Iteration> iterations;
+    private final List<SearchMetrics> parts;
+    private long iterationStart;
+    private long iterationExpanded;
+    private int iterationLimit;
+
+    /**
+     * Constructor.
+     */
+    public SearchMetrics() {
+        this.iterations = Collections.synchronizedList(new ArrayList<Iteration>());
+        this.parts = new CopyOnWriteArrayList<SearchMetrics>();
+        Reset();
+    }
+
+    /**
+     * Start resets the counters and starts the search's clock.
+     */
+    public void Start() {
+        Reset();
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Finish stops the search's clock.
+     */
+    public void Finish() {
+        this.finish = System.nanoTime();
+    }
+
+    /**
+     * Part adds a part for a thread of a parallel search, that is started with this search.
+     * @return the part
+     */
+    public SearchMetrics Part() {
+        SearchMetrics part = new SearchMetrics();
+        part.start = this.start;
+        this.parts.add(part);
+        return part;
+    }
+
+    /**
+     * Generated counts new nodes.
+     * @param count - the number of nodes
+     */
+    public void Generated(int count) {
+        this.generated += count;
+    }
+
+    /**
+     * Expanded counts a developed node.
+     */
+    public void Expanded() {
+        this.expanded++;
+    }
+
+    /**
+     * Duplicate counts a node that was pruned since it's state was already reached.
+     */
+    public void Duplicate() {
+        this.duplicates++;
+    }
+
+    /**
+     * Evaluated counts heuristic evaluations, full or incremental.
+     * @param count - the number of evaluations
+     */
+    public void Evaluated(int count) {
+        this.evaluations += count;
+    }
+
+    /**
+     * Frontier records the open list's size, to keep it's peak.
+     * @param size - the current size
+     */
+    public void Frontier(long size) {
+        if (size > this.peakFrontier)
+            this.peakFrontier = size;
+    }
+
+    /**
+     * Closed records the closed list's size, to keep it's peak.
+     * @param size - the current size
+     */
+    public void Closed(long size) {
+        if (size > this.peakClosed)
+            this.peakClosed = size;
+    }
+
+    /**
+     * StartIteration starts an iteration of an iterative search.
+     * @param limit - the iteration's depth limit or threshold
+     */
+    public void StartIteration(int limit) {
+        this.iterationLimit = limit;
+        this.iterationExpanded = this.expanded;
+        this.iterationStart = System.nanoTime();
+    }
+
+    /**
+     * EndIteration ends the current iteration and keeps it's statistics.
+     */
+    public void EndIteration() {
+        this.iterations.add(new Iteration(this.iterationLimit, this.expanded - this.iterationExpanded,
+                System.nanoTime() - this.iterationStart));
+    }
+
+    @Override
+    public long getGenerated() {
+        long sum = this.generated;
+        for (SearchMetrics part : this.parts)
+            sum += part.getGenerated();
+        return sum;
+    }
+
+    @Override
+    public long getExpanded() {
+        long sum = this.expanded;
+        for (SearchMetrics part : this.parts)
+            sum += part.getExpanded();
+        return sum;
+    }
+
+    @Override
+    public long getDuplicates() {
+        long sum = this.duplicates;
+        for (SearchMetrics part : this.parts)
+            sum += part.getDuplicates();
+        return sum;
+    }
+
+    @Override
+    public long getPeakFrontier() {
+        // the parts' peaks may not be at the same time, so their sum is an upper bound
+        long sum = this.peakFrontier;
+        for (SearchMetrics part : this.parts)
+            sum += part.getPeakFrontier();
+        return sum;
+    }
+
+    @Override
+    public long getPeakClosed() {
+        long sum = this.peakClosed;
+        for (SearchMetrics part : this.parts)
+            sum += part.getPeakClosed();
+        return sum;
+    }
+
+    @Override
+    public long getHeuristicEvaluations() {
+        long sum = this.evaluations;
+        for (SearchMetrics part : this.parts)
+            sum += part.getHeuristicEvaluations();
+        return sum;
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        if (this.start == 0L)
+            return 0L;
+        long end = this.finish != 0L ? this.finish : System.nanoTime();
+        return end - this.start;
+    }
+
+    @Override
+    public double getExpansionsPerSecond() {
+        long elapsed = getElapsedNanos();
+        return elapsed == 0L ? 0.0 : getExpanded() * 1e9 / elapsed;
+    }
+
+    @Override
+    public int getIterationCount() {
+        return this.iterations.size();
+    }
+
+    /**
+     * getIterations
+     * @return the finished iterations of an iterative search, in their order
+     */
+    public List<Iteration> getIterations() {
+        synchronized (this.iterations) {
+            return new ArrayList<Iteration>(this.iterations);
+        }
+    }
+
+    /**
+     * Register exposes the metrics as a JMX bean, named tiles:type=SearchMetrics,name=(the name).
+     * @param name - the bean's name
+     * @return the bean's object name, to unregister it with
+     * @throws JMException if the bean can't be registered
+     */
+    public ObjectName Register(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("tiles:type=SearchMetrics,name=" + ObjectName.quote(name));
+        if (server.isRegistered(objectName))
+            server.unregisterMBean(objectName);
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("generated %d, expanded %d, duplicates %d, peak frontier %d, peak closed %d, "
+                + "heuristic evaluations %d, %.3f seconds, %.0f expansions per second",
+                getGenerated(), getExpanded(), getDuplicates(), getPeakFrontier(), getPeakClosed(),
+                getHeuristicEvaluations(), getElapsedNanos() / 1e9, getExpansionsPerSecond());
+    }
+
+    /**
+     * Reset sets all the counters to 0.
+     */
+    private void Reset() {
+        this.generated = 0;
+        this.expanded = 0;
+        this.duplicates = 0;
+        this.peakFrontier = 0;
+        this.peakClosed = 0;
+        this.evaluations = 0;
+        this.start = 0L;
+        this.finish = 0L;
+        this.iterations.clear();
+        this.parts.clear();
+    }
+
+    /**
+     * Iteration holds the statistics of a single iteration of an iterative search.
+     */
+    public static class Iteration {
+
+        private final int limit;
+        private final long expanded;
+        private final long nanos;
+
+        /**
+         * Constructor.
+         * @param limit - the depth limit or threshold
+         * @param expanded - the nodes that were developed in the iteration
+         * @param nanos - the iteration's time
+         */
+        Iteration(int limit, long expanded, long nanos) {
+            this.limit = limit;
+            this.expanded = expanded;
+            this.nanos = nanos;
+        }
+
+        /**
+         * getLimit
+         * @return the iteration's depth limit or threshold
+         */
+        public int getLimit() {
+            return this.limit;
+        }
+
+        /**
+         * getExpanded
+         * @return the nodes that were developed in the iteration
+         */
+        public long getExpanded() {
+            return this.expanded;
+        }
+
+        /**
+         * getNanos
+         * @return the iteration's time, in nanoseconds
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("limit %d: expanded %d in %.3f seconds", this.limit, this.expanded, this.nanos / 1e9);
+        }
+    }
+}
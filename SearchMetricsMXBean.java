@@ -0,0 +1,60 @@
+/**
+ * SearchMetricsMXBean is the view of a search's metrics over JMX, so a long search can be watched with jconsole
+ * or any other JMX client.
+ */
+public interface SearchMetricsMXBean {
+
+    /**
+     * getGenerated
+     * @return the number of generated nodes
+     */
+    long getGenerated();
+
+    /**
+     * getExpanded
+     * @return the number of developed nodes, over all the iterations
+     */
+    long getExpanded();
+
+    /**
+     * getDuplicates
+     * @return the number of nodes that were pruned since their state was already reached
+     */
+    long getDuplicates();
+
+    /**
+     * getPeakFrontier
+     * @return the largest size of the open list
+     */
+    long getPeakFrontier();
+
+    /**
+     * getPeakClosed
+     * @return the largest size of the closed list
+     */
+    long getPeakClosed();
+
+    /**
+     * getHeuristicEvaluations
+     * @return the number of heuristic evaluations, full or incremental
+     */
+    long getHeuristicEvaluations();
+
+    /**
+     * getElapsedNanos
+     * @return the search's time so far, in nanoseconds
+     */
+    long getElapsedNanos();
+
+    /**
+     * getExpansionsPerSecond
+     * @return the developed nodes per second
+     */
+    double getExpansionsPerSecond();
+
+    /**
+     * getIterationCount
+     * @return the number of finished iterations of an iterative search
+     */
+    int getIterationCount();
+}
@@ -0,0 +1,225 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shape is the board of a puzzle - it's rows and columns, and the goal state, which is the tiles in order with
+ * the 0 in the last cell unless another goal is given. Everything that only depends on the board is calculated
+ * once per shape and shared by all the states of it: the moves table, the Zobrist keys, and the distance of every
+ * tile, from every cell, to it's goal cell.
+ * The states of boards of up to 16 cells are packed into a long, the bigger boards are kept in byte arrays.
+ */
+public final class Shape {
+
+    /**
+     * the most cells of a board, the tiles of the bigger boards don't fit in the bytes of ByteState.
+     */
+    public static final int MAX_CELLS = 256;
+
+    private static final Map<Integer, Shape> standard = new HashMap<Integer, Shape>();
+
+    private final int rows;
+    private final int columns;
+    private final int cells;
+    private final boolean standardGoal;
+    // the tile of every cell of the goal, and the goal cell of every tile
+    private final int[] goal;
+    private final int[] goalCell;
+    // the distance of tile t from it's goal cell, when it is in cell c, is at t * cells + c
+    private final int[] distances;
+    private final long[] zobrist;
+    private final MoveTable moves;
+
+    /**
+     * Constructor.
+     * @param rows - the number of rows
+     * @param columns - the number of columns
+     * @param goal - the tile of every cell of the goal state
+     * @param standardGoal - true if the goal is the tiles in order with the 0 last
+     */
+    private Shape(int rows, int columns, int[] goal, boolean standardGoal) {
+        this.rows = rows;
+        this.columns = columns;
+        this.cells = rows * columns;
+        this.standardGoal = standardGoal;
+        this.goal = goal;
+        this.goalCell = new int[this.cells];
+        for (int cell = 0; cell < this.cells; cell++)
+            this.goalCell[goal[cell]] = cell;
+        this.distances = new int[this.cells * this.cells];
+        for (int tile = 1; tile < this.cells; tile++) {
+            int goalRow = this.goalCell[tile] / columns;
+            int goalColumn = this.goalCell[tile] % columns;
+            for (int cell = 0; cell < this.cells; cell++)
+                this.distances[tile * this.cells + cell] = Math.abs(cell / columns - goalRow)
+                        + Math.abs(cell % columns - goalColumn);
+        }
+        this.zobrist = Zobrist.Table(this.cells);
+        this.moves = MoveTable.For(rows, columns);
+    }
+
+    /**
+     * Of returns the shape of a board with the standard goal.
+     * @param rows - the number of rows
+     * @param columns - the number of columns
+     * @return the shape
+     * @throws InvalidPuzzleException if the board is too small or too big
+     */
+    public static synchronized Shape Of(int rows, int columns) {
+        if (rows < 2 || columns < 2 || rows > MAX_CELLS || columns > MAX_CELLS || (long) rows * columns > MAX_CELLS)
+            throw new InvalidPuzzleException(InvalidPuzzleException.Reason.BAD_SIZE, "a board must have at least 2 "
+                    + "rows and 2 columns and at most " + MAX_CELLS + " cells, it is " + rows + "x" + columns);
+        Integer key = rows * (MAX_CELLS + 1) + columns;
+        Shape shape = standard.get(key);
+        if (shape == null) {
+            int cells = rows * columns;
+            int[] goal = new int[cells];
+            for (int k = 0; k < cells - 1; k++)
+                goal[k] = k + 1;
+            shape = new Shape(rows, columns, goal, true);
+            standard.put(key, shape);
+        }
+        return shape;
+    }
+
+    /**
+     * Square
+     * @param size - the rows' and columns' size
+     * @return the shape of a square board with the standard goal
+     * @throws InvalidPuzzleException if the board is too small or too big
+     */
+    public static Shape Square(int size) {
+        return Of(size, size);
+    }
+
+    /**
+     * Parse parses a board size, a single number for a square board or the rows and the columns, as 2x4.
+     * @param size - the size as a string
+     * @return the shape of the board with the standard goal
+     * @throws InvalidPuzzleException if the size is not a board size
+     */
+    public static Shape Parse(String size) {
+        String[] dimensions = size == null ? new String[0] : size.trim().toLowerCase().split("x", -1);
+        try {
+            if (dimensions.length == 1)
+                return Square(Integer.parseInt(dimensions[0]));
+            if (dimensions.length == 2)
+                return Of(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+        } catch (NumberFormatException e) {
+            // the same error as any other malformed size
+        }
+        throw new InvalidPuzzleException(InvalidPuzzleException.Reason.BAD_SIZE,
+                "the board size must be a number or rows x columns, it is '" + size + "'");
+    }
+
+    /**
+     * WithGoal returns the shape of the same board with another goal.
+     * @param goal - the tile of every cell of the goal state, checked by PuzzleValidator
+     * @return the shape
+     */
+    public Shape WithGoal(int[] goal) {
+        for (int cell = 0; cell < this.cells; cell++) {
+            if (goal[cell] != this.goal[cell])
+                return new Shape(this.rows, this.columns, goal.clone(), false);
+        }
+        return this;
+    }
+
+    /**
+     * getRows
+     * @return the number of rows
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * getColumns
+     * @return the number of columns, a row's length
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * getCells
+     * @return the number of cells
+     */
+    public int getCells() {
+        return this.cells;
+    }
+
+    /**
+     * Goal
+     * @param cell - a cell's index, row * columns + column
+     * @return the tile of that cell in the goal state
+     */
+    public int Goal(int cell) {
+        return this.goal[cell];
+    }
+
+    /**
+     * GoalCell
+     * @param tile - a tile
+     * @return the cell of the tile in the goal state
+     */
+    public int GoalCell(int tile) {
+        return this.goalCell[tile];
+    }
+
+    /**
+     * Distance
+     * @param tile - a tile, but the 0
+     * @param cell - the cell it is in
+     * @return the Manhattan's distance of the tile from it's goal cell
+     */
+    public int Distance(int tile, int cell) {
+        return this.distances[tile * this.cells + cell];
+    }
+
+    /**
+     * IsSquare
+     * @return true if the board has as many rows as columns
+     */
+    public boolean IsSquare() {
+        return this.rows == this.columns;
+    }
+
+    /**
+     * IsStandard
+     * @return true if the goal is the tiles in order with the 0 last
+     */
+    public boolean IsStandard() {
+        return this.standardGoal;
+    }
+
+    /**
+     * getZobrist
+     * @return the Zobrist keys of the board's cells
+     */
+    public long[] getZobrist() {
+        return this.zobrist;
+    }
+
+    /**
+     * getMoves
+     * @return the moves table of the board
+     */
+    public MoveTable getMoves() {
+        return this.moves;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(this.rows).append('x').append(this.columns);
+        if (!this.standardGoal) {
+            builder.append(':');
+            for (int cell = 0; cell < this.cells; cell++) {
+                if (cell > 0)
+                    builder.append('-');
+                builder.append(this.goal[cell]);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,210 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SolutionCache keeps the results of solved puzzles, so a puzzle that was already solved doesn't have to be
+ * searched again. The results are kept by the algorithm, the heuristic and the puzzle, since they all change the
+ * output, and by the algorithm's settings that change it too. The most recently used results are kept in memory,
+ * up to a bound, and every new result is appended to an optional store file, that is read back when the cache is
+ * opened.
+ * A puzzle and it's transpose (mirrored on the main diagonal, with the tiles renamed to match) are solved by the
+ * same moves with U and L, and D and R, swapped, so with the symmetry a puzzle of a square board and the standard
+ * goal that is not cached is looked for as it's transpose.
+ * The mirrored result has the same cost, but the searches break ties by the directions, so it's track and
+ * developed nodes may differ from the puzzle's own search. That makes the output depend on what was cached before,
+ * so the symmetry is only used when -Dsearch.cache.symmetry=true is set, and never by default. A puzzle's own result
+ * always comes first.
+ * The keys are made of the parsed tiles, so the spaces and the leading zeros of the input don't change them.
+ */
+public class SolutionCache implements Closeable {
+
+    private final Map<String, String> entries;
+    private final BufferedWriter store;
+    private final boolean symmetry;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructor, loads the store if it exists.
+     * @param capacity - the most results to keep in memory
+     * @param storePath - the file the results are appended to, or null to keep them only in memory
+     * @param symmetry - true to answer a puzzle with the mirrored result of it's transpose, only set by
+     * -Dsearch.cache.symmetry=true
+     * @throws IOException if the store can't be read or opened
+     */
+    public SolutionCache(int capacity, Path storePath, boolean symmetry) throws IOException {
+        this.symmetry = symmetry;
+        // an access ordered map drops the least recently used result when it is full
+        this.entries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > capacity;
+            }
+        };
+        if (storePath == null) {
+            this.store = null;
+            return;
+        }
+        if (Files.exists(storePath)) {
+            try (BufferedReader reader = Files.newBufferedReader(storePath, StandardCharsets.US_ASCII)) {
+                String line;
+                // later lines replace earlier ones of the same puzzle
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.lastIndexOf('\t');
+                    if (tab > 0)
+                        this.entries.put(line.substring(0, tab), line.substring(tab + 1));
+                }
+            }
+        }
+        this.store = Files.newBufferedWriter(storePath, StandardCharsets.US_ASCII, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Get looks for the result of a puzzle, or of it's transpose.
+     * @param algorithm - the algorithm's code
+     * @param settings - the algorithm's settings that are not the defaults, or an empty string
+     * @param heuristic - the heuristic's name
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     * @return the output line - the track, the developed nodes and the cost, or null if it is not cached
+     */
+    public synchronized String Get(int algorithm, String settings, String heuristic, Shape shape, int[] tiles) {
+        String result = this.entries.get(Key(algorithm, settings, heuristic, shape, tiles));
+        if (result == null && this.symmetry && shape.IsSquare() && shape.IsStandard()) {
+            result = this.entries.get(Key(algorithm, settings, heuristic, shape,
+                    Transpose(shape.getRows(), tiles)));
+            if (result != null)
+                result = Mirror(result);
+        }
+        if (result == null)
+            this.misses++;
+        else
+            this.hits++;
+        return result;
+    }
+
+    /**
+     * Put keeps the result of a puzzle, and appends it to the store.
+     * @param algorithm - the algorithm's code
+     * @param settings - the algorithm's settings that are not the defaults, or an empty string
+     * @param heuristic - the heuristic's name
+     * @param shape - the board, with it's goal
+     * @param tiles - the initial state's tiles, row by row
+     * @param result - the output line
+     */
+    public synchronized void Put(int algorithm, String settings, String heuristic, Shape shape, int[] tiles,
+            String result) {
+        String key = Key(algorithm, settings, heuristic, shape, tiles);
+        if (result.equals(this.entries.put(key, result)) || this.store == null)
+            return;
+        try {
+            this.store.write(key);
+            this.store.write('\t');
+            this.store.write(result);
+            this.store.newLine();
+            // each result is flushed, so the store has everything that was solved even if the program is killed
+            this.store.flush();
+        } catch (IOException e) {
+            // the result is still cached in memory
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * getHits
+     * @return the number of puzzles that were found in the cache
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * getMisses
+     * @return the number of puzzles that were not found in the cache
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.store != null)
+            this.store.close();
+    }
+
+    /**
+     * Key
+     * @param algorithm - the algorithm's code
+     * @param settings - the algorithm's settings that are not the defaults, or an empty string
+     * @param heuristic - the heuristic's name
+     * @param shape - the board, with it's goal
+     * @param tiles - the state's tiles, row by row
+     * @return the key of the puzzle's entry
+     */
+    private static String Key(int algorithm, String settings, String heuristic, Shape shape, int[] tiles) {
+        StringBuilder key = new StringBuilder();
+        key.append(algorithm);
+        // the default settings keep the keys they had before the settings were kept
+        if (!settings.isEmpty())
+            key.append(' ').append(settings);
+        key.append('\t').append(heuristic).append('\t');
+        // the states of the square boards tell their size, and keep the keys they had before the other shapes
+        if (!(shape.IsSquare() && shape.IsStandard()))
+            key.append(shape).append('\t');
+        for (int k = 0; k < tiles.length; k++) {
+            if (k > 0)
+                key.append('-');
+            key.append(tiles[k]);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Transpose mirrors a state on the main diagonal. The tile that belongs in (row, column) of the goal is
+     * renamed to the tile that belongs in (column, row), so the goal state is it's own transpose.
+     * @param size - the board size
+     * @param tiles - the state's tiles, row by row
+     * @return the transposed state's tiles
+     */
+    static int[] Transpose(int size, int[] tiles) {
+        int[] transposed = new int[size * size];
+        for (int index = 0; index < tiles.length; index++) {
+            int tile = tiles[index];
+            if (tile != 0)
+                tile = ((tile - 1) % size) * size + (tile - 1) / size + 1;
+            transposed[(index % size) * size + index / size] = tile;
+        }
+        return transposed;
+    }
+
+    /**
+     * Mirror swaps the moves of a result's track, U with L and D with R, for the transposed puzzle.
+     * @param result - the output line
+     * @return the output line of the transposed puzzle
+     */
+    static String Mirror(String result) {
+        char[] line = result.toCharArray();
+        // the track ends at the first space, the numbers after it don't change
+        for (int i = 0; i < line.length && line[i] != ' '; i++) {
+            switch (line[i]) {
+                case 'U': line[i] = 'L'; break;
+                case 'L': line[i] = 'U'; break;
+                case 'D': line[i] = 'R'; break;
+                case 'R': line[i] = 'D'; break;
+                default: break;
+            }
+        }
+        return new String(line);
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * SolutionListener gets the solutions of an anytime search as they are found, each one cheaper than the one before.
+ */
+public interface SolutionListener {
+
+    /**
+     * Found is called with every new best solution.
+     * @param track - the solution's moves, U, D, L and R
+     * @param cost - the solution's cost, it's number of moves
+     * @param weight - the heuristic's weight of the search that found it, the cost is at most weight times the optimal
+     * @param elapsedNanos - the time since the search started
+     */
+    void Found(String track, int cost, double weight, long elapsedNanos);
+}
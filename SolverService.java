@@ -0,0 +1,280 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * SolverService is a resident solver, that solves the puzzles of many requests in a single JVM, so they don't pay
+ * for it's start, a cold JIT and a growing heap every time. It reads the requests line by line, from the standard
+ * input or from the connections of a local socket, and answers every line in the order of the requests:
+ * a puzzle in the batch's form - the algorithm's code, the board size, the initial state and an optional goal
+ * state - is answered with it's result (or it's error), "stats" with the percentiles of the requests' latencies,
+ * and "quit" ends the connection.
+ * The requests are solved concurrently on a thread for every core. The heuristics are loaded once per board and
+ * shared by all the requests, and every thread reuses it's search buffers (SearchBuffers) from request to request.
+ * Before it answers anything, every thread of the pool solves a few random puzzles, so the searches are already
+ * compiled and the threads' buffers are allocated.
+ */
+public class SolverService {
+
+    // the marks of the end of a connection's answers, and of the latencies' place among them
+    private static final Future<String> END = CompletableFuture.completedFuture(null);
+    private static final Future<String> STATS = CompletableFuture.completedFuture(null);
+
+    private final SolutionCache cache;
+    private final String heuristicName;
+    private final ForkJoinPool pool;
+    private final Map<String, Heuristic> heuristics;
+    private final LatencyHistogram latencies;
+
+    /**
+     * Constructor.
+     * @param cache - the solution cache, or null
+     * @param heuristicName - the heuristic of the informed searches, as in the input file's fourth row
+     */
+    public SolverService(SolutionCache cache, String heuristicName) {
+        this.cache = cache;
+        this.heuristicName = heuristicName;
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        this.heuristics = new ConcurrentHashMap<String, Heuristic>();
+        this.latencies = new LatencyHistogram();
+    }
+
+    /**
+     * WarmUp solves random puzzles of the 3x3 and 4x4 boards with the common algorithms on every thread of the
+     * pool, until the searches are compiled and each thread has it's search buffers, and loads the heuristics of
+     * these boards. It returns when all the threads are done. Their latencies are not counted.
+     * @param puzzles - the number of puzzles of each algorithm, on each thread
+     */
+    public void WarmUp(int puzzles) {
+        long start = System.nanoTime();
+        int threads = this.pool.getParallelism();
+        // every task holds it's thread until all of them started, so each thread gets one
+        CountDownLatch started = new CountDownLatch(threads);
+        List<Future<Integer>> tasks = new ArrayList<Future<Integer>>();
+        for (int t = 0; t < threads; t++) {
+            long seed = puzzles * (long) threads + t;
+            tasks.add(this.pool.submit(() -> {
+                started.countDown();
+                started.await();
+                return WarmUp(puzzles, new Random(seed));
+            }));
+        }
+        int solved = 0;
+        for (Future<Integer> task : tasks) {
+            try {
+                solved += task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // a warm up doesn't stop the service
+                e.printStackTrace();
+            }
+        }
+        System.err.printf("warmed up %d threads with %d puzzles in %.3f seconds%n", threads, solved,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * WarmUp solves the random puzzles of a thread.
+     * @param puzzles - the number of puzzles of each algorithm
+     * @param random - the thread's random numbers
+     * @return the number of puzzles that were solved
+     */
+    private int WarmUp(int puzzles, Random random) {
+        int solved = 0;
+        for (int i = 0; i < puzzles; i++) {
+            // the uninformed searches only get the small board
+            for (int algorithm : new int[] {1, 2, 3, 4}) {
+                Shape shape = Shape.Square(algorithm <= 2 ? 3 : 3 + i % 2);
+                String state = Walk(shape, algorithm <= 2 ? 12 : 24, random);
+                try {
+                    SearchEngine.SolveLine(new String[] {String.valueOf(algorithm), String.valueOf(shape.getRows()),
+                        state}, this.heuristics, this.heuristicName, null);
+                    solved++;
+                } catch (RuntimeException e) {
+                    // a warm up puzzle doesn't stop the service
+                    e.printStackTrace();
+                }
+            }
+        }
+        return solved;
+    }
+
+    /**
+     * Serve answers the requests of the standard input on the standard output, until it ends or "quit".
+     */
+    public void Serve() {
+        Handle(System.in, System.out);
+        Shutdown();
+    }
+
+    /**
+     * Serve answers the requests of the connections to a local port, until the process is stopped.
+     * @param port - the port, on the loopback address
+     */
+    public void Serve(int port) {
+        // the latencies are printed when the service is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.println("latencies: " + this.latencies)));
+        try (ServerSocket server = new ServerSocket(port, 64, InetAddress.getLoopbackAddress())) {
+            System.err.println("serving on " + server.getLocalSocketAddress());
+            while (true) {
+                Socket socket = server.accept();
+                Thread connection = new Thread(() -> {
+                    try (Socket open = socket) {
+                        Handle(open.getInputStream(), open.getOutputStream());
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }, "solver-connection-" + socket.getPort());
+                connection.start();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            this.pool.shutdownNow();
+        }
+    }
+
+    /**
+     * getLatencies
+     * @return the latencies of the answered requests
+     */
+    public LatencyHistogram getLatencies() {
+        return this.latencies;
+    }
+
+    /**
+     * Handle answers the requests of a single connection. The requests are read and solved on this thread and the
+     * pool, and the answers are written in their order by another thread, as soon as they are ready.
+     * @param input - the requests
+     * @param output - the answers
+     */
+    private void Handle(InputStream input, OutputStream output) {
+        BlockingQueue<Future<String>> pending = new LinkedBlockingQueue<Future<String>>();
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.US_ASCII));
+        Thread answers = new Thread(() -> WriteAnswers(writer, pending), Thread.currentThread().getName() + "-answers");
+        answers.start();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.US_ASCII));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String request = line.trim();
+                if (request.isEmpty())
+                    continue;
+                if (request.equals("quit"))
+                    break;
+                if (request.equals("stats")) {
+                    // the latencies are taken when the answers before them are written
+                    pending.add(STATS);
+                    continue;
+                }
+                String[] fields = request.split("\\s+");
+                long received = System.nanoTime();
+                pending.add(this.pool.submit(() -> {
+                    try {
+                        return SearchEngine.SolveLine(fields, this.heuristics, this.heuristicName, this.cache);
+                    } finally {
+                        this.latencies.Record(System.nanoTime() - received);
+                    }
+                }));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            pending.add(END);
+        }
+        try {
+            answers.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * WriteAnswers writes the answers of a connection in the order of their requests, until it's end. The
+     * latencies are written when they are reached, so they count all the requests that were answered before.
+     * @param writer - the connection's output
+     * @param pending - the answers, in the order of the requests
+     */
+    private void WriteAnswers(BufferedWriter writer, BlockingQueue<Future<String>> pending) {
+        try {
+            Future<String> answer;
+            while ((answer = pending.take()) != END) {
+                if (answer == STATS) {
+                    writer.write(this.latencies.toString());
+                    writer.newLine();
+                } else {
+                    SearchEngine.WriteResult(writer, answer);
+                }
+                // the client waits for every answer
+                if (pending.isEmpty())
+                    writer.flush();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Shutdown stops the pool, and prints the latencies.
+     */
+    private void Shutdown() {
+        this.pool.shutdownNow();
+        System.err.println("latencies: " + this.latencies);
+    }
+
+    /**
+     * Walk makes random moves from the goal state, never undoing the last one.
+     * @param shape - the board
+     * @param moves - the number of moves
+     * @param random - the random moves' source
+     * @return the state that the moves lead to, as one string
+     */
+    private static String Walk(Shape shape, int moves, Random random) {
+        State state = State.Create(shape);
+        for (int cell = 0; cell < shape.getCells(); cell++)
+            state.Set(cell, shape.Goal(cell));
+        int previous = -1;
+        for (int i = 0; i < moves; i++) {
+            int blank = state.getBlank();
+            int[] targets = shape.getMoves().Targets(blank);
+            int target;
+            do {
+                target = targets[random.nextInt(targets.length)];
+            } while (target == previous);
+            state.MoveBlank(target);
+            previous = blank;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int cell = 0; cell < shape.getCells(); cell++) {
+            if (cell > 0)
+                builder.append('-');
+            builder.append(state.Get(cell));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * State is the compact representation of a board configuration. The tiles are kept by their index
+ * (row * columns + column), and the position of the 0 is cached so it never has to be searched for.
+ * Boards of up to 16 cells are packed into a single long, bigger boards are kept in a byte array.
+ * Every state also keeps it's Zobrist hash, which is updated with each move.
+ */
+public abstract class State {
+
+    protected final Shape shape;
+    protected final int cells;
+    protected final long[] zobrist;
+    protected int blank;
+    protected long hash;
+
+    /**
+     * Constructor.
+     * @param shape - the board
+     */
+    protected State(Shape shape) {
+        this.shape = shape;
+        this.cells = shape.getCells();
+        this.zobrist = shape.getZobrist();
+        this.blank = 0;
+        // all the cells start with the tile 0
+        this.hash = 0L;
+        for (int i = 0; i < this.cells; i++)
+            this.hash ^= this.zobrist[i * this.cells];
+    }
+
+    /**
+     * Copy constructor, used by the subclasses' Copy().
+     * @param other - the state to copy the shape, the blank and the hash from
+     */
+    protected State(State other) {
+        this.shape = other.shape;
+        this.cells = other.cells;
+        this.zobrist = other.zobrist;
+        this.blank = other.blank;
+        this.hash = other.hash;
+    }
+
+    /**
+     * Create chooses the most compact encoding that fits the board.
+     * @param shape - the board
+     * @return an empty state (all the tiles are 0)
+     */
+    public static State Create(Shape shape) {
+        if (shape.getCells() <= PackedState.MAX_CELLS)
+            return new PackedState(shape);
+        return new ByteState(shape);
+    }
+
+    /**
+     * Get
+     * @param index - the cell's index, row * columns + column
+     * @return the tile in that cell
+     */
+    public abstract int Get(int index);
+
+    /**
+     * Set puts a tile in a cell, used while the board is being built.
+     * @param index - the cell's index
+     * @param value - the tile
+     */
+    public abstract void Set(int index, int value);
+
+    /**
+     * MoveBlank slides the tile at the target cell into the blank cell, so the blank moves to the target.
+     * @param target - the index of the tile that moves
+     */
+    public abstract void MoveBlank(int target);
+
+    /**
+     * Copy
+     * @return a new state with the same tiles
+     */
+    public abstract State Copy();
+
+    /**
+     * Key is a long that identifies the state. Only the packed tiles are exact, two states may share a hash, so
+     * the closed lists key the states through StateKeys.
+     * @return the packed tiles when they fit in a long, the Zobrist hash otherwise
+     */
+    public abstract long Key();
+
+    /**
+     * UpdateHash replaces the tile of a cell in the Zobrist hash.
+     * @param index - the cell's index
+     * @param oldValue - the tile that was in the cell
+     * @param newValue - the tile that is in the cell now
+     */
+    protected void UpdateHash(int index, int oldValue, int newValue) {
+        int row = index * this.cells;
+        this.hash ^= this.zobrist[row + oldValue] ^ this.zobrist[row + newValue];
+    }
+
+    /**
+     * getShape
+     * @return the board of the state
+     */
+    public Shape getShape() {
+        return this.shape;
+    }
+
+    /**
+     * getBlank
+     * @return the index of the 0
+     */
+    public int getBlank() {
+        return this.blank;
+    }
+
+    /**
+     * getHash
+     * @return the Zobrist hash of the state
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (this.hash ^ (this.hash >>> 32));
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * StateKeys gives the states of a search exact keys, for the closed lists that keep longs. A packed state is it's
+ * own key. The key of a bigger board is it's 64 bit hash, which two states may share, so a closed list keyed by it
+ * could skip a state that was never reached. StateKeys keeps the state of every key it gave, with the same open
+ * addressing as LongNodeMap, and compares the tiles when a hash is found again. A state whose hash was taken by
+ * another state gets the next key that is free. Each search (or each thread of a search) keeps it's own keys.
+ */
+public class StateKeys {
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private long[] keys;
+    // the state of each key, null for the free slots
+    private State[] states;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    public StateKeys() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.states = new State[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+        this.size = 0;
+    }
+
+    /**
+     * Key
+     * @param state - a state, that is not changed while the keys are kept
+     * @return the state's key, the same for equal states only
+     */
+    public long Key(State state) {
+        return Key(state, true);
+    }
+
+    /**
+     * Find looks a state's key up without keeping the state, for the states that are only checked.
+     * @param state - a state
+     * @return the state's key, or a key that no state has if the state wasn't given one
+     */
+    public long Find(State state) {
+        return Key(state, false);
+    }
+
+    /**
+     * Key
+     * @param state - a state
+     * @param keep - true to give the state a key if it has none
+     * @return the state's key, or the key it would get
+     */
+    private long Key(State state, boolean keep) {
+        if (state instanceof PackedState)
+            return state.Key();
+        long key = state.getHash();
+        while (true) {
+            int slot = Slot(key);
+            while (this.states[slot] != null && this.keys[slot] != key)
+                slot = (slot + 1) & this.mask;
+            if (this.states[slot] == null) {
+                if (keep)
+                    Add(slot, key, state);
+                return key;
+            }
+            if (this.states[slot].equals(state))
+                return key;
+            // another state has this key
+            key++;
+        }
+    }
+
+    /**
+     * Add takes a free slot for a key.
+     * @param slot - the slot
+     * @param key - the key
+     * @param state - the key's state
+     */
+    private void Add(int slot, long key, State state) {
+        this.keys[slot] = key;
+        this.states[slot] = state;
+        this.size++;
+        // keep the table at most half full, so the probing stays short
+        if (this.size * 2 > this.keys.length)
+            Grow();
+    }
+
+    /**
+     * Slot mixes the key's bits, like LongNodeMap.
+     * @param key - the key
+     * @return the first slot to look for the key in
+     */
+    private int Slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.mask;
+    }
+
+    /**
+     * Grow doubles the table and re-inserts all the keys.
+     */
+    private void Grow() {
+        long[] oldKeys = this.keys;
+        State[] oldStates = this.states;
+        this.keys = new long[oldKeys.length * 2];
+        this.states = new State[oldKeys.length * 2];
+        this.mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStates[i] == null)
+                continue;
+            int slot = Slot(oldKeys[i]);
+            while (this.states[slot] != null)
+                slot = (slot + 1) & this.mask;
+            this.keys[slot] = oldKeys[i];
+            this.states[slot] = oldStates[i];
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.io.IOException;
+
+/**
+ * TableDescent solves the 3x3 board without a search: it looks the distance of every successor up in the
+ * DistanceTable and moves to the one that is a step closer to the goal, until it is there. The solution is
+ * optimal, and of the optimal solutions it takes the first move in the order U, D, L, R at every step.
+ * A goal with the 0 in the last cell is the standard goal with the tiles renamed, so the states are renamed to
+ * match before they are looked up.
+ * The developed nodes are the states of the solution, including the goal state.
+ */
+public class TableDescent extends Algorithm {
+
+    private final DistanceTable table;
+    // the standard goal's tile of every tile of the shape's goal
+    private final int[] names;
+
+    /**
+     * Constructor, with the table of the given file, which is built if it does not exist yet.
+     * @param shape - the board, 3x3 with the 0 in the last cell of it's goal
+     * @param tiles - the initial state's tiles, row by row
+     * @param tablePath - the distance table's file
+     * @throws IllegalArgumentException if the board is not 3x3, or it's goal has the 0 in another cell
+     */
+    public TableDescent(Shape shape, int[] tiles, String tablePath) {
+        super(shape, tiles);
+        int cells = DistanceTable.SIZE * DistanceTable.SIZE;
+        if (shape.getRows() != DistanceTable.SIZE || shape.getColumns() != DistanceTable.SIZE
+                || shape.GoalCell(0) != cells - 1)
+            throw new IllegalArgumentException("the distance table solves 3x3 boards with the 0 last in the goal, "
+                    + "not " + shape);
+        this.names = new int[cells];
+        for (int tile = 1; tile < cells; tile++)
+            this.names[tile] = shape.GoalCell(tile) + 1;
+        this.table = OpenTable(tablePath);
+    }
+
+    /**
+     * OpenTable opens the distance table.
+     * @param path - the table's file
+     * @return the table, held in memory if the file can't be used
+     */
+    private static DistanceTable OpenTable(String path) {
+        try {
+            return DistanceTable.Open(path);
+        } catch (IOException e) {
+            // the table can still be built for this run
+            e.printStackTrace();
+            return DistanceTable.Build();
+        }
+    }
+
+    @Override
+    public int Cost() {
+        // the cost here is simply the depth of the result node.
+        return this.goalState.getDepth();
+    }
+
+    @Override
+    public Node Search(MovesLogic logic) {
+        this.metrics.Start();
+        MoveTable moves = this.shape.getMoves();
+        long state = 0L;
+        for (int cell = 0; cell < this.shape.getCells(); cell++)
+            state |= (long) this.names[this.initialState.getState().Get(cell)] << (cell << 2);
+        int distance = this.table.Distance(state);
+        char[] track = new char[64];
+        int length = 0;
+        int blank = PackedState.Blank(state, this.shape.getCells());
+        while (state != DistanceTable.GOAL) {
+            this.developedNodes++;
+            this.metrics.Expanded();
+            int[] targets = moves.Targets(blank);
+            char[] directions = moves.Directions(blank);
+            int closer = (distance + 15) & 0xF;
+            int next = -1;
+            for (int i = 0; i < targets.length && next < 0; i++) {
+                this.metrics.Evaluated(1);
+                if (this.table.Distance(PackedState.MoveBlank(state, blank, targets[i])) == closer)
+                    next = i;
+            }
+            if (next < 0 || length == track.length)
+                throw new IllegalStateException("the distance table has no way to the goal");
+            state = PackedState.MoveBlank(state, blank, targets[next]);
+            blank = targets[next];
+            track[length++] = directions[next];
+            distance = closer;
+        }
+        this.developedNodes++;
+        this.metrics.Expanded();
+        this.metrics.Finish();
+        return BuildTrack(logic, track, length);
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * TieBreaking is the order that A* develops the nodes of the same estimate f(n) in.
+ * The nodes are ordered by their insertion, which follows their sequence numbers - the order they were created in,
+ * so the order never depends on the clock and the same puzzle is always developed the same way.
+ */
+public enum TieBreaking {
+
+    /**
+     * first in, first out - by creation order and then by direction, R, L, D and U, as the exercise defined.
+     */
+    FIFO,
+
+    /**
+     * last in, first out - the newest nodes first.
+     */
+    LIFO,
+
+    /**
+     * the lowest heuristic value h(n) first, which is the deepest node, and first in, first out among those.
+     */
+    H_FIFO,
+
+    /**
+     * the lowest heuristic value h(n) first, and last in, first out among those.
+     */
+    H_LIFO;
+
+    /**
+     * Parse
+     * @param name - fifo, lifo, h-fifo or h-lifo, in any case
+     * @return the policy of that name
+     */
+    public static TieBreaking Parse(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * ByHeuristic
+     * @return true if the nodes of the same estimate are ordered by their heuristic value first
+     */
+    public boolean ByHeuristic() {
+        return this == H_FIFO || this == H_LIFO;
+    }
+
+    /**
+     * IsLifo
+     * @return true if the nodes that tie are developed newest first
+     */
+    public boolean IsLifo() {
+        return this == LIFO || this == H_LIFO;
+    }
+}
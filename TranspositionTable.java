@@ -0,0 +1,84 @@
+import java.util.Arrays;
+
+/**
+ * TranspositionTable remembers the smallest depth each state was reached at, for the depth-first searches.
+ * It is a fixed size table with a single slot for every key, and a new state simply replaces the old one in it's
+ * slot, so it never grows. Losing a state only costs the search a subtree it will search again, never a solution.
+ * The hash of a bigger board may be shared by two states, so their slots also keep the states to compare.
+ */
+public class TranspositionTable {
+
+    private final long[] keys;
+    // the depth plus 1, so 0 marks an empty slot
+    private final short[] depths;
+    private final int mask;
+    // the states of the slots, only for the boards that aren't packed
+    private State[] states;
+
+    /**
+     * Constructor.
+     * @param capacity - the number of slots, rounded up to a power of 2
+     */
+    public TranspositionTable(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.keys = new long[slots];
+        this.depths = new short[slots];
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Visit checks if a state was already reached at the same depth or before it, and otherwise records it.
+     * @param key - the state's key
+     * @param depth - the depth it is reached at now
+     * @return true if the state was reached at the same depth or less, so it's subtree can be skipped
+     */
+    public boolean Visit(long key, int depth) {
+        int slot = Slot(key);
+        if (this.depths[slot] != 0 && this.keys[slot] == key && this.depths[slot] <= depth + 1)
+            return true;
+        this.keys[slot] = key;
+        this.depths[slot] = (short) (depth + 1);
+        return false;
+    }
+
+    /**
+     * Visit checks a state like Visit(key, depth), keyed exactly even if the board isn't packed.
+     * @param state - the state, which may change after the call
+     * @param depth - the depth it is reached at now
+     * @return true if the state was reached at the same depth or less, so it's subtree can be skipped
+     */
+    public boolean Visit(State state, int depth) {
+        if (state instanceof PackedState)
+            return Visit(state.Key(), depth);
+        if (this.states == null)
+            this.states = new State[this.keys.length];
+        long key = state.Key();
+        int slot = Slot(key);
+        if (this.depths[slot] != 0 && this.keys[slot] == key && state.equals(this.states[slot])) {
+            if (this.depths[slot] <= depth + 1)
+                return true;
+        } else {
+            this.states[slot] = state.Copy();
+        }
+        this.keys[slot] = key;
+        this.depths[slot] = (short) (depth + 1);
+        return false;
+    }
+
+    /**
+     * Clear forgets all the states.
+     */
+    public void Clear() {
+        Arrays.fill(this.depths, (short) 0);
+    }
+
+    /**
+     * Slot mixes the key's bits, since the packed states differ mostly in their low bits.
+     * @param key - the key
+     * @return the slot of the key
+     */
+    private int Slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.mask;
+    }
+}
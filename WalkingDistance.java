@@ -0,0 +1,227 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * WalkingDistance estimates the moves to the goal by the rows and the columns the tiles are in, instead of their
+ * cells. The tiles of a row are counted by their goal rows, and the fewest moves that bring these counts to the
+ * goal - where a move takes a single tile from a row next to the 0's row into it - are the vertical distance.
+ * The horizontal distance is the same for the columns, and the estimate is the sum of the two. It is admissible,
+ * and at least the Manhattan's distance, since tiles of the same goal row that are in the same row are not
+ * told apart and have to be moved past each other.
+ * The fewest moves of every count of the rows (and of the columns) are searched once per board, so a state is
+ * estimated by two lookups. A move changes the counts by the moved tile's counts, so a state's codes are derived
+ * from it's parent's, which are kept from the parent's estimate (or it's sibling's), and the board is scanned
+ * only when they aren't. A move only changes the counts of the rows or of the columns, so only one of them is
+ * looked up again. The counts are packed into a long, 4 bits each, so the boards have up to 4 rows and columns.
+ */
+public class WalkingDistance implements Heuristic {
+
+    /**
+     * the most rows or columns of a board, the counts of bigger boards don't fit in a long.
+     */
+    public static final int MAX_LINES = 4;
+
+    private static final Map<String, LongIntHashMap> tables = new HashMap<String, LongIntHashMap>();
+
+    private final Shape shape;
+    private final LongIntHashMap vertical;
+    private final LongIntHashMap horizontal;
+    // the count that a tile adds to the code of it's row, and of it's column, from every cell
+    private final long[] rowCounts;
+    private final long[] columnCounts;
+    // the codes of the last parent and the last state that were estimated, every thread keeps it's own.
+    // the key 0 has only 0s, so it is never a state
+    private final ThreadLocal<long[]> known = ThreadLocal.withInitial(() -> new long[6]);
+
+    /**
+     * Constructor, searches the distances of the board's counts unless they were already searched.
+     * @param shape - the board, with it's goal
+     * @throws IllegalArgumentException if the board has more than MAX_LINES rows or columns
+     */
+    public WalkingDistance(Shape shape) {
+        if (!Fits(shape))
+            throw new IllegalArgumentException("the walking distance needs at most " + MAX_LINES
+                    + " rows and columns, the board is " + shape.getRows() + "x" + shape.getColumns());
+        this.shape = shape;
+        int rows = shape.getRows();
+        int columns = shape.getColumns();
+        int cells = shape.getCells();
+        int blank = shape.GoalCell(0);
+        this.vertical = Table(rows, columns, blank / columns);
+        this.horizontal = Table(columns, rows, blank % columns);
+        this.rowCounts = new long[cells * cells];
+        this.columnCounts = new long[cells * cells];
+        for (int tile = 1; tile < cells; tile++) {
+            int goal = shape.GoalCell(tile);
+            for (int cell = 0; cell < cells; cell++) {
+                this.rowCounts[tile * cells + cell] = Count(rows, cell / columns, goal / columns);
+                this.columnCounts[tile * cells + cell] = Count(columns, cell % columns, goal % columns);
+            }
+        }
+    }
+
+    /**
+     * Fits
+     * @param shape - a board
+     * @return true if the walking distance can estimate the board's states
+     */
+    public static boolean Fits(Shape shape) {
+        return shape.getRows() <= MAX_LINES && shape.getColumns() <= MAX_LINES;
+    }
+
+    @Override
+    public int Evaluate(State state) {
+        int cells = this.shape.getCells();
+        long rows = 0;
+        long columns = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            int tile = state.Get(cell);
+            rows += this.rowCounts[tile * cells + cell];
+            columns += this.columnCounts[tile * cells + cell];
+        }
+        Keep(this.known.get(), 0, state.Key(), rows, columns);
+        return this.vertical.Get(rows, 0) + this.horizontal.Get(columns, 0);
+    }
+
+    @Override
+    public int Update(State state, int distance, int tile, int from, int to) {
+        int cells = this.shape.getCells();
+        int columns = this.shape.getColumns();
+        long[] known = this.known.get();
+        long rowsBefore;
+        long columnsBefore;
+        // the walking boards are packed, so the parent's key is the state's with the move undone
+        long parentKey = state instanceof PackedState ? PackedState.MoveBlank(state.Key(), from, to) : 0;
+        int entry = state instanceof PackedState ? Find(known, parentKey) : -1;
+        if (entry >= 0) {
+            rowsBefore = known[entry + 1];
+            columnsBefore = known[entry + 2];
+        } else {
+            rowsBefore = 0;
+            columnsBefore = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                int other = state.Get(cell);
+                rowsBefore += this.rowCounts[other * cells + cell];
+                columnsBefore += this.columnCounts[other * cells + cell];
+            }
+            rowsBefore += this.rowCounts[tile * cells + from] - this.rowCounts[tile * cells + to];
+            columnsBefore += this.columnCounts[tile * cells + from] - this.columnCounts[tile * cells + to];
+        }
+        long rows = rowsBefore - this.rowCounts[tile * cells + from] + this.rowCounts[tile * cells + to];
+        long columnsAfter = columnsBefore - this.columnCounts[tile * cells + from]
+                + this.columnCounts[tile * cells + to];
+        if (state instanceof PackedState) {
+            // the parent's other children come next, or the state's own children
+            Keep(known, 0, parentKey, rowsBefore, columnsBefore);
+            Keep(known, 3, state.Key(), rows, columnsAfter);
+        }
+        // a move along a row doesn't change the counts of the rows, and a move along a column those of the columns
+        if (from / columns == to / columns)
+            return distance - this.horizontal.Get(columnsBefore, 0) + this.horizontal.Get(columnsAfter, 0);
+        return distance - this.vertical.Get(rowsBefore, 0) + this.vertical.Get(rows, 0);
+    }
+
+    /**
+     * Find
+     * @param known - the kept states, a key and it's codes each
+     * @param key - the key of a state
+     * @return the index of the state's entry, or -1 if it isn't kept
+     */
+    private static int Find(long[] known, long key) {
+        for (int entry = 0; entry < known.length; entry += 3) {
+            if (known[entry] == key)
+                return entry;
+        }
+        return -1;
+    }
+
+    /**
+     * Keep remembers the codes of a state.
+     * @param known - the kept states, a key and it's codes each
+     * @param entry - the index of the entry
+     * @param key - the key of the state
+     * @param rows - the code of the rows' counts
+     * @param columns - the code of the columns' counts
+     */
+    private static void Keep(long[] known, int entry, long key, long rows, long columns) {
+        known[entry] = key;
+        known[entry + 1] = rows;
+        known[entry + 2] = columns;
+    }
+
+    /**
+     * Count
+     * @param lines - the number of rows, or columns
+     * @param line - the row (or column) a tile is in
+     * @param goal - the row (or column) the tile belongs in
+     * @return the tile's count in the code of the lines
+     */
+    private static long Count(int lines, int line, int goal) {
+        return 1L << ((line * lines + goal) * 4);
+    }
+
+    /**
+     * Table searches the fewest moves from every count of the lines to the goal's counts, with a BFS from the
+     * goal's counts, unless they were already searched. The 0's line is the line with a tile less than the others.
+     * @param lines - the number of rows (or columns)
+     * @param length - the number of cells in a line
+     * @param blankGoal - the line the 0 belongs in
+     * @return the fewest moves, by the code of the counts
+     */
+    static synchronized LongIntHashMap Table(int lines, int length, int blankGoal) {
+        String key = lines + "x" + length + ":" + blankGoal;
+        LongIntHashMap table = tables.get(key);
+        if (table != null)
+            return table;
+        table = new LongIntHashMap();
+        long goal = 0;
+        for (int line = 0; line < lines; line++)
+            goal += Count(lines, line, line) * (line == blankGoal ? length - 1 : length);
+        table.Put(goal, 0);
+        // the queue of the BFS, the codes are never removed from it
+        long[] queue = {goal};
+        int size = 1;
+        for (int head = 0; head < size; head++) {
+            long code = queue[head];
+            int depth = table.Get(code, 0) + 1;
+            int blank = BlankLine(code, lines, length);
+            for (int neighbour = blank - 1; neighbour <= blank + 1; neighbour += 2) {
+                if (neighbour < 0 || neighbour >= lines)
+                    continue;
+                // any tile of the neighbouring line may move into the 0's line
+                for (int group = 0; group < lines; group++) {
+                    if (((code >>> ((neighbour * lines + group) * 4)) & 15) == 0)
+                        continue;
+                    long moved = code - Count(lines, neighbour, group) + Count(lines, blank, group);
+                    if (table.Get(moved, -1) < 0) {
+                        table.Put(moved, depth);
+                        if (size == queue.length)
+                            queue = Arrays.copyOf(queue, size * 2);
+                        queue[size++] = moved;
+                    }
+                }
+            }
+        }
+        tables.put(key, table);
+        return table;
+    }
+
+    /**
+     * BlankLine
+     * @param code - the counts of the lines
+     * @param lines - the number of rows (or columns)
+     * @param length - the number of cells in a line
+     * @return the line of the 0, the only line that isn't full
+     */
+    private static int BlankLine(long code, int lines, int length) {
+        for (int line = 0; line < lines; line++) {
+            int tiles = 0;
+            for (int group = 0; group < lines; group++)
+                tiles += (int) ((code >>> ((line * lines + group) * 4)) & 15);
+            if (tiles < length)
+                return line;
+        }
+        throw new IllegalStateException("the counts have no 0");
+    }
+}
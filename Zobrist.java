@@ -0,0 +1,30 @@
+import java.util.Random;
+
+/**
+ * Zobrist holds the random keys that are used to hash the states. Every (cell, tile) pair has a random long,
+ * and the hash of a state is the xor of the keys of all it's cells, so moving a tile changes it by four xors.
+ * The keys are generated once per number of cells from a fixed seed, so the hashes are the same on every run.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5DEECE66DL;
+    private static final long[][] tables = new long[Shape.MAX_CELLS + 1][];
+
+    private Zobrist() { }
+
+    /**
+     * Table returns the keys of a number of cells, the key of tile t in cell c is at index c * cells + t.
+     * @param cells - the board's number of cells
+     * @return the keys
+     */
+    public static synchronized long[] Table(int cells) {
+        if (tables[cells] == null) {
+            long[] table = new long[cells * cells];
+            Random random = new Random(SEED + cells);
+            for (int i = 0; i < table.length; i++)
+                table[i] = random.nextLong();
+            tables[cells] = table;
+        }
+        return tables[cells];
+    }
+}
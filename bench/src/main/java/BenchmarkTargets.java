@@ -0,0 +1,192 @@
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * BenchmarkTargets wraps the solver's code for the JMH benchmarks. JMH refuses benchmarks in the default package,
+ * and a named package can't refer to the default one, so the benchmarks get these closures once, by reflection,
+ * and call them through the java.util.function interfaces.
+ */
+public class BenchmarkTargets {
+
+    private BenchmarkTargets() { }
+
+    /**
+     * Solve solves every puzzle with a new solver of the given algorithm.
+     * @param algorithm - the algorithm's code, as in the input file
+     * @param size - the board size
+     * @param states - the puzzles
+     * @return the closure, which returns the last solver
+     */
+    public static Supplier<Object> Solve(int algorithm, int size, String[] states) {
+        return () -> {
+            Algorithm solver = null;
+            for (String state : states) {
+                solver = SearchEngine.CreateSolver(algorithm, size, state);
+                solver.Search(new MovesLogic());
+            }
+            return solver;
+        };
+    }
+
+    /**
+     * GenerateMoves develops each of the puzzles' states once.
+     * @param size - the board size
+     * @param states - the puzzles
+     * @return the closure, which returns the number of successors
+     */
+    public static IntSupplier GenerateMoves(int size, String[] states) {
+        Node[] nodes = Nodes(size, states);
+        MovesLogic logic = new MovesLogic();
+        Node[] moves = new Node[MovesLogic.MAX_MOVES];
+        return () -> {
+            int successors = 0;
+            for (Node node : nodes)
+                successors += logic.GenerateMoves(node, moves);
+            return successors;
+        };
+    }
+
+    /**
+     * Evaluate calculates a heuristic of the puzzles' states from scratch.
+     * @param heuristic - manhattan, linear or walking
+     * @param size - the board size
+     * @param states - the puzzles
+     * @return the closure, which returns the sum of the estimates
+     */
+    public static IntSupplier Evaluate(String heuristic, int size, String[] states) {
+        Heuristic function = Function(heuristic, size);
+        State[] parsed = States(size, states);
+        return () -> {
+            int sum = 0;
+            for (State state : parsed)
+                sum += function.Evaluate(state);
+            return sum;
+        };
+    }
+
+    /**
+     * Update updates a heuristic of the puzzles' states over a move and it's undoing.
+     * @param heuristic - manhattan, linear or walking
+     * @param size - the board size
+     * @param states - the puzzles
+     * @return the closure, which returns the sum of the estimates
+     */
+    public static IntSupplier Update(String heuristic, int size, String[] states) {
+        Heuristic function = Function(heuristic, size);
+        State[] parsed = States(size, states);
+        int[] estimates = new int[parsed.length];
+        for (int i = 0; i < parsed.length; i++)
+            estimates[i] = function.Evaluate(parsed[i]);
+        MoveTable table = Shape.Square(size).getMoves();
+        return () -> {
+            int sum = 0;
+            for (int i = 0; i < parsed.length; i++) {
+                State state = parsed[i];
+                int blank = state.getBlank();
+                int target = table.Targets(blank)[0];
+                int tile = state.Get(target);
+                state.MoveBlank(target);
+                int moved = function.Update(state, estimates[i], tile, target, blank);
+                state.MoveBlank(blank);
+                sum += function.Update(state, moved, tile, blank, target);
+            }
+            return sum;
+        };
+    }
+
+    /**
+     * HashMoves makes a move and undoes it on each of the puzzles' states, which updates their Zobrist hashes.
+     * @param size - the board size
+     * @param states - the puzzles
+     * @return the closure, which returns the xor of the states' keys
+     */
+    public static LongSupplier HashMoves(int size, String[] states) {
+        State[] parsed = States(size, states);
+        MoveTable table = Shape.Square(size).getMoves();
+        return () -> {
+            long keys = 0L;
+            for (State state : parsed) {
+                int blank = state.getBlank();
+                state.MoveBlank(table.Targets(blank)[0]);
+                keys ^= state.Key() ^ state.getHash();
+                state.MoveBlank(blank);
+            }
+            return keys;
+        };
+    }
+
+    /**
+     * ClosedList adds the keys of the puzzles' states and their successors to a new closed list.
+     * @param size - the board size
+     * @param states - the puzzles
+     * @return the closure, which returns the closed list's size
+     */
+    public static IntSupplier ClosedList(int size, String[] states) {
+        Node[] nodes = Nodes(size, states);
+        MovesLogic logic = new MovesLogic();
+        Node[] moves = new Node[MovesLogic.MAX_MOVES];
+        int keyCount = 0;
+        long[] keys = new long[nodes.length * (MovesLogic.MAX_MOVES + 1)];
+        for (Node node : nodes) {
+            keys[keyCount++] = node.getState().Key();
+            int count = logic.GenerateMoves(node, moves);
+            for (int i = 0; i < count; i++)
+                keys[keyCount++] = moves[i].getState().Key();
+        }
+        int total = keyCount;
+        return () -> {
+            LongHashSet closedList = new LongHashSet();
+            for (int i = 0; i < total; i++) {
+                if (!closedList.Contains(keys[i]))
+                    closedList.Add(keys[i]);
+            }
+            return closedList.Size();
+        };
+    }
+
+    /**
+     * Function creates a heuristic by it's name.
+     * @param heuristic - manhattan, linear or walking
+     * @param size - the board size
+     * @return the heuristic
+     */
+    private static Heuristic Function(String heuristic, int size) {
+        if (heuristic.equals("linear"))
+            return new LinearConflict();
+        if (heuristic.equals("walking"))
+            return new WalkingDistance(Shape.Square(size));
+        return new Manhattan();
+    }
+
+    /**
+     * States parses the puzzles.
+     * @param size - the board size
+     * @param states - the puzzles, the numbers seperated by '-'
+     * @return the states
+     */
+    private static State[] States(int size, String[] states) {
+        State[] parsed = new State[states.length];
+        for (int i = 0; i < states.length; i++) {
+            parsed[i] = State.Create(Shape.Square(size));
+            String[] values = states[i].split("-");
+            for (int k = 0; k < values.length; k++)
+                parsed[i].Set(k, Integer.parseInt(values[k]));
+        }
+        return parsed;
+    }
+
+    /**
+     * Nodes makes a root node of each of the puzzles.
+     * @param size - the board size
+     * @param states - the puzzles
+     * @return the nodes
+     */
+    private static Node[] Nodes(int size, String[] states) {
+        State[] parsed = States(size, states);
+        Node[] nodes = new Node[parsed.length];
+        for (int i = 0; i < parsed.length; i++)
+            nodes[i] = new Node(parsed[i], null, Node.NO_OPERATOR, 0);
+        return nodes;
+    }
+}
@@ -0,0 +1,78 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * CorpusGenerator writes the puzzles the benchmarks are measured on. The puzzles are random walks from the goal
+ * state with a fixed seed, solved by IDA* so they can be grouped by their exact solution depth.
+ * The corpus is kept in the sources, it only has to be generated again if the groups change.
+ */
+public class CorpusGenerator {
+
+    private static final long SEED = 20181018L;
+    private static final int PER_GROUP = 5;
+    private static final int[][] GROUPS = {{3, 8}, {3, 16}, {3, 24}, {4, 20}, {4, 30}, {4, 40}};
+
+    /**
+     * main method, writes the corpus
+     * @param args the corpus file
+     * @throws IOException if the file can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(SEED);
+        try (PrintWriter writer = new PrintWriter(new FileWriter(args[0]))) {
+            writer.println("# size depth state - generated by CorpusGenerator, seed " + SEED);
+            for (int[] group : GROUPS) {
+                int size = group[0];
+                int depth = group[1];
+                int found = 0;
+                while (found < PER_GROUP) {
+                    // a walk longer than the depth, since walks fold back on themselves
+                    String state = RandomWalk(size, depth + 2 * random.nextInt(depth / 2 + 1), random);
+                    Algorithm solver = new IDAStar(size, state);
+                    solver.Search(new MovesLogic());
+                    if (solver.Cost() != depth)
+                        continue;
+                    writer.println(size + " " + depth + " " + state);
+                    found++;
+                }
+            }
+        }
+    }
+
+    /**
+     * RandomWalk moves the 0 randomly from the goal state, never undoing the last move.
+     * @param size - the board size
+     * @param steps - the number of moves
+     * @param random - the random generator
+     * @return the state as one string, the numbers seperated by '-'
+     */
+    private static String RandomWalk(int size, int steps, Random random) {
+        int cells = size * size;
+        int[] board = new int[cells];
+        for (int i = 0; i < cells - 1; i++)
+            board[i] = i + 1;
+        int blank = cells - 1;
+        int previous = -1;
+        MoveTable table = Shape.Square(size).getMoves();
+        for (int step = 0; step < steps; step++) {
+            int[] targets = table.Targets(blank);
+            int target;
+            do {
+                target = targets[random.nextInt(targets.length)];
+            } while (target == previous);
+            board[blank] = board[target];
+            board[target] = 0;
+            previous = blank;
+            blank = target;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < cells; i++) {
+            if (i > 0)
+                builder.append('-');
+            builder.append(board[i]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Corpus reads the fixed puzzles of corpus.txt, written by CorpusGenerator, so every commit is measured on the
+ * same puzzles.
+ */
+final class Corpus {
+
+    private Corpus() { }
+
+    /**
+     * States
+     * @param size - the board size
+     * @param depth - the solution depth, or -1 for all the depths
+     * @return the puzzles of that size and depth
+     */
+    static String[] States(int size, int depth) {
+        List<String> states = new ArrayList<String>();
+        try (InputStream stream = Corpus.class.getResourceAsStream("/corpus.txt");
+                BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#"))
+                    continue;
+                String[] fields = line.split(" ");
+                if (Integer.parseInt(fields[0]) == size && (depth < 0 || Integer.parseInt(fields[1]) == depth))
+                    states.add(fields[2]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (states.isEmpty())
+            throw new IllegalArgumentException("the corpus has no " + size + "x" + size + " puzzles of depth " + depth);
+        return states.toArray(new String[0]);
+    }
+}
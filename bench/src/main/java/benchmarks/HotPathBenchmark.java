@@ -0,0 +1,102 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HotPathBenchmark measures the code that runs for every node of a search - move generation, heuristic
+ * evaluation and state hashing - over all the corpus' puzzles of a board size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HotPathBenchmark {
+
+    @Param({"3", "4"})
+    public int size;
+
+    private IntSupplier generateMoves;
+    private IntSupplier manhattan;
+    private IntSupplier linearConflict;
+    private IntSupplier manhattanUpdate;
+    private IntSupplier linearConflictUpdate;
+    private IntSupplier walkingDistance;
+    private IntSupplier walkingDistanceUpdate;
+    private LongSupplier hashMoves;
+    private IntSupplier closedList;
+
+    @Setup
+    public void Setup() {
+        String[] states = Corpus.States(this.size, -1);
+        this.generateMoves = Targets.Get("GenerateMoves", this.size, states);
+        this.manhattan = Targets.Get("Evaluate", "manhattan", this.size, states);
+        this.linearConflict = Targets.Get("Evaluate", "linear", this.size, states);
+        this.manhattanUpdate = Targets.Get("Update", "manhattan", this.size, states);
+        this.linearConflictUpdate = Targets.Get("Update", "linear", this.size, states);
+        this.walkingDistance = Targets.Get("Evaluate", "walking", this.size, states);
+        this.walkingDistanceUpdate = Targets.Get("Update", "walking", this.size, states);
+        this.hashMoves = Targets.Get("HashMoves", this.size, states);
+        this.closedList = Targets.Get("ClosedList", this.size, states);
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        return this.generateMoves.getAsInt();
+    }
+
+    @Benchmark
+    public int manhattan() {
+        return this.manhattan.getAsInt();
+    }
+
+    @Benchmark
+    public int linearConflict() {
+        return this.linearConflict.getAsInt();
+    }
+
+    @Benchmark
+    public int manhattanUpdate() {
+        return this.manhattanUpdate.getAsInt();
+    }
+
+    @Benchmark
+    public int linearConflictUpdate() {
+        return this.linearConflictUpdate.getAsInt();
+    }
+
+    @Benchmark
+    public int walkingDistance() {
+        return this.walkingDistance.getAsInt();
+    }
+
+    @Benchmark
+    public int walkingDistanceUpdate() {
+        return this.walkingDistanceUpdate.getAsInt();
+    }
+
+    @Benchmark
+    public long hashMoves() {
+        return this.hashMoves.getAsLong();
+    }
+
+    @Benchmark
+    public int closedList() {
+        return this.closedList.getAsInt();
+    }
+}
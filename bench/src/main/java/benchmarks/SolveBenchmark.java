@@ -0,0 +1,103 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SolveBenchmark measures each algorithm on the corpus' puzzles of a solution depth. An operation solves all the
+ * puzzles of the group with new solvers. The uninformed searches are measured on the shallow groups only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    /**
+     * the informed searches on 3x3 boards.
+     */
+    @State(Scope.Benchmark)
+    public static class Informed3x3 {
+
+        @Param({"3", "4", "5", "6"})
+        public int algorithm;
+
+        @Param({"8", "16", "24"})
+        public int depth;
+
+        Supplier<Object> solve;
+
+        @Setup
+        public void Setup() {
+            this.solve = Targets.Get("Solve", this.algorithm, 3, Corpus.States(3, this.depth));
+        }
+    }
+
+    /**
+     * the uninformed searches on 3x3 boards.
+     */
+    @State(Scope.Benchmark)
+    public static class Uninformed3x3 {
+
+        @Param({"1", "2"})
+        public int algorithm;
+
+        @Param({"8", "16"})
+        public int depth;
+
+        Supplier<Object> solve;
+
+        @Setup
+        public void Setup() {
+            this.solve = Targets.Get("Solve", this.algorithm, 3, Corpus.States(3, this.depth));
+        }
+    }
+
+    /**
+     * the informed searches on 4x4 boards.
+     */
+    @State(Scope.Benchmark)
+    public static class Informed4x4 {
+
+        @Param({"3", "4", "5"})
+        public int algorithm;
+
+        @Param({"20", "30", "40"})
+        public int depth;
+
+        Supplier<Object> solve;
+
+        @Setup
+        public void Setup() {
+            this.solve = Targets.Get("Solve", this.algorithm, 4, Corpus.States(4, this.depth));
+        }
+    }
+
+    @Benchmark
+    public Object informed3x3(Informed3x3 state) {
+        return state.solve.get();
+    }
+
+    @Benchmark
+    public Object uninformed3x3(Uninformed3x3 state) {
+        return state.solve.get();
+    }
+
+    @Benchmark
+    public Object informed4x4(Informed4x4 state) {
+        return state.solve.get();
+    }
+}
@@ -0,0 +1,31 @@
+package benchmarks;
+
+import java.lang.reflect.Method;
+
+/**
+ * Targets gets the closures of BenchmarkTargets, which is in the default package, by reflection.
+ * It is only called while the benchmarks are set up, never while they are measured.
+ */
+final class Targets {
+
+    private Targets() { }
+
+    /**
+     * Get calls a factory method of BenchmarkTargets.
+     * @param method - the method's name
+     * @param args - the method's arguments, ints are passed as Integer
+     * @return the closure
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T Get(String method, Object... args) {
+        try {
+            for (Method candidate : Class.forName("BenchmarkTargets").getMethods()) {
+                if (candidate.getName().equals(method) && candidate.getParameterCount() == args.length)
+                    return (T) candidate.invoke(null, args);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("can't create the benchmark target " + method, e);
+        }
+        throw new IllegalArgumentException("there is no benchmark target " + method);
+    }
+}
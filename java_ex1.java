@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 /**
  * main class, holds the main function from which the program is ran.
  */
@@ -5,12 +7,35 @@ public class java_ex1 {
     
     /**
      * main method, to run the program from
-     * @param args not used
+     * @param args empty to solve input.txt, or --batch, the puzzles file, the results file and an optional heuristic,
+     * or --histogram, the board size and an optional directory for the layers,
+     * or --serve, an optional port and an optional heuristic, to answer puzzles from the port or the standard input
      */
     public static void main(String[] args) {
         SearchEngine engine = new SearchEngine();
+        if (args.length >= 2 && args[0].equals("--histogram")) {
+            engine.Histogram(args[1], args.length > 2 ? args[2] : null);
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--serve")) {
+            // the port is optional, the heuristic's words are not numbers
+            int first = args.length > 1 && args[1].matches("\\d+") ? 2 : 1;
+            Integer port = first == 2 ? Integer.valueOf(args[1]) : null;
+            String heuristic = args.length > first ? String.join(" ", Arrays.copyOfRange(args, first, args.length))
+                    : null;
+            engine.Serve(port, heuristic);
+            engine.Close();
+            return;
+        }
+        if (args.length >= 3 && args[0].equals("--batch")) {
+            String heuristic = args.length > 3 ? String.join(" ", Arrays.copyOfRange(args, 3, args.length)) : null;
+            engine.SolveBatch(args[1], args[2], heuristic);
+            engine.Close();
+            return;
+        }
         engine.Initialize();
         engine.Solve();
         engine.WriteOutput();
+        engine.Close();
     }
 }